@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -5,9 +6,29 @@ import java.util.*;
  */
 public class Cube {
     private static final int SIZE = 3;
+    private static final int PIECES = 20;
+    private static final String FACE_LETTERS = "URFDLB";
+
+    // Piece each facelet (face * 9 + row * 3 + col) belongs to: corners 0-7, edges 8-19, centres -1
+    private static final int[] PIECE_OF = buildPieceIndex();
+
+    // Facelets moved by a turn of each face, whatever its direction
+    private static final int[][] TOUCHED = traceTouchedFacelets();
+
     private final int[][][] faces;
     private String randomSequence;
 
+    // Running counts kept up to date by every move, so checking progress is O(1)
+    private int misplaced;
+    private final int[] faceMisplaced = new int[6];
+    private final int[] pieceMisplaced = new int[PIECES];
+    private int solvedFaces;
+    private int solvedPieces;
+
+    // getStateString() result, dropped whenever the cube changes
+    private final char[] stateChars = new char[FaceletCodec.LENGTH];
+    private String stateString;
+
     public static final List<String> MOVES = List.of("U", "U'", "R", "R'", "F", "F'", "D", "D'", "L", "L'", "B", "B'");
 
     public Cube() {
@@ -15,6 +36,39 @@ public class Cube {
         reset();
     }
 
+    private static int[] buildPieceIndex() {
+        int[] pieceOf = new int[6 * SIZE * SIZE];
+        Arrays.fill(pieceOf, -1);
+        for (int c = 0; c < CubieCube.N_CORNERS; c++)
+            for (int p : CubieCube.CORNER_FACELET[c])
+                pieceOf[p] = c;
+        for (int e = 0; e < CubieCube.N_EDGES; e++)
+            for (int p : CubieCube.EDGE_FACELET[e])
+                pieceOf[p] = CubieCube.N_CORNERS + e;
+        return pieceOf;
+    }
+
+    /**
+     * Turns each face once on a cube labelled with facelet numbers and records
+     * which facelets changed.
+     */
+    private static int[][] traceTouchedFacelets() {
+        int[][] touched = new int[6][];
+        for (int f = 0; f < 6; f++) {
+            Cube probe = new Cube();
+            for (int p = 0; p < 6 * SIZE * SIZE; p++)
+                probe.faces[p / 9][(p % 9) / SIZE][p % SIZE] = p;
+            probe.applySingleMove(String.valueOf(FACE_LETTERS.charAt(f)));
+
+            int[] changed = new int[6 * SIZE * SIZE];
+            int n = 0;
+            for (int p = 0; p < 6 * SIZE * SIZE; p++)
+                if (probe.faces[p / 9][(p % 9) / SIZE][p % SIZE] != p) changed[n++] = p;
+            touched[f] = Arrays.copyOf(changed, n);
+        }
+        return touched;
+    }
+
     /**
      * Resets the cube to solved state.
      */
@@ -23,20 +77,59 @@ public class Cube {
             for (int i = 0; i < SIZE; i++)
                 for (int j = 0; j < SIZE; j++)
                     faces[f][i][j] = f;
+        recount();
+        stateString = null;
+    }
+
+    /**
+     * Rebuilds the progress counters from scratch.
+     */
+    private void recount() {
+        misplaced = 0;
+        Arrays.fill(faceMisplaced, 0);
+        Arrays.fill(pieceMisplaced, 0);
+        solvedFaces = 6;
+        solvedPieces = PIECES;
+        for (int p = 0; p < 6 * SIZE * SIZE; p++)
+            if (PIECE_OF[p] >= 0 && isMisplaced(p)) countMisplaced(p);
+    }
+
+    private boolean isMisplaced(int p) {
+        int[][] face = faces[p / 9];
+        // Centres never move, so each face is judged against its own centre
+        return face[(p % 9) / SIZE][p % SIZE] != face[1][1];
+    }
+
+    private void countMisplaced(int p) {
+        misplaced++;
+        if (faceMisplaced[p / 9]++ == 0) solvedFaces--;
+        if (pieceMisplaced[PIECE_OF[p]]++ == 0) solvedPieces--;
+    }
+
+    private void uncountMisplaced(int p) {
+        misplaced--;
+        if (--faceMisplaced[p / 9] == 0) solvedFaces++;
+        if (--pieceMisplaced[PIECE_OF[p]] == 0) solvedPieces++;
     }
 
     /**
-     * Scrambles the cube with random moves.
+     * Scrambles the cube with random moves, skipping redundant ones.
      */
     public void scramble(int moves) {
-        Random rand = new Random();
-        StringBuilder sequence = new StringBuilder();
-        for (int i = 0; i < moves; i++) {
-            String randMove = MOVES.get(rand.nextInt(MOVES.size()));
-            move(randMove);
-            sequence.append(randMove).append(" ");
-        }
-        randomSequence = sequence.toString().trim();
+        scramble(ScrambleGenerator.current().randomMoves(moves));
+    }
+
+    /**
+     * Scrambles the cube with a random-move sequence that depends only on the seed.
+     */
+    public void scramble(int moves, long seed) {
+        scramble(new ScrambleGenerator(seed).randomMoves(moves));
+    }
+
+    private void scramble(int[] sequence) {
+        for (int m : sequence)
+            move(MoveEngine.toNotation(m));
+        randomSequence = MoveEngine.toNotation(sequence);
     }
 
     /**
@@ -47,6 +140,23 @@ public class Cube {
     }
 
     public void move(String m){
+        int face = m.isEmpty() ? -1 : FACE_LETTERS.indexOf(m.charAt(0));
+        if (face < 0) throw new IllegalArgumentException("Invalid move: " + m);
+
+        // Only the facelets this face turn moves can change the counters
+        int[] touched = TOUCHED[face];
+        for (int p : touched)
+            if (isMisplaced(p)) uncountMisplaced(p);
+        try {
+            applyMove(m);
+        } finally {
+            for (int p : touched)
+                if (isMisplaced(p)) countMisplaced(p);
+            stateString = null;
+        }
+    }
+
+    private void applyMove(String m) {
         switch (m) {
             case "U": case "U'": case "R": case "R'": case "D": case "D'":
             case "L": case "L'": case "F": case "F'": case "B": case "B'":
@@ -468,17 +578,34 @@ public class Cube {
      * Checks if the cube is in a solved state.
      */
     public boolean isSolved() {
-        for (int f = 0; f < 6; f++) {
-            int color = faces[f][0][0];
-            for (int i = 0; i < SIZE; i++)
-                for (int j = 0; j < SIZE; j++)
-                    if (faces[f][i][j] != color) return false;
-        }
-        return true;
+        return misplaced == 0;
+    }
+
+    /**
+     * Returns how many facelets differ from the centre of their face.
+     */
+    public int getMisplacedFacelets() {
+        return misplaced;
+    }
+
+    /**
+     * Returns how many faces (0-6) show a single colour.
+     */
+    public int getSolvedFaces() {
+        return solvedFaces;
+    }
+
+    /**
+     * Returns how many of the 20 corner and edge pieces are in place and oriented.
+     */
+    public int getSolvedPieces() {
+        return solvedPieces;
     }
 
     /**
      * Returns the current state of the cube.
+     * The array is live; change it through {@link #setFaces} so the
+     * progress counters stay correct.
      */
     public int[][][] getFaces() {
         return faces;
@@ -491,17 +618,23 @@ public class Cube {
         if (newFaces.length != 6) {
             throw new IllegalArgumentException("Must provide exactly 6 faces");
         }
-        
-        for (int f = 0; f < 6; f++) {
-            if (newFaces[f].length != SIZE) {
-                throw new IllegalArgumentException("Each face must be " + SIZE + "×" + SIZE);
-            }
-            for (int i = 0; i < SIZE; i++) {
-                if (newFaces[f][i].length != SIZE) {
+
+        try {
+            for (int f = 0; f < 6; f++) {
+                if (newFaces[f].length != SIZE) {
                     throw new IllegalArgumentException("Each face must be " + SIZE + "×" + SIZE);
                 }
-                System.arraycopy(newFaces[f][i], 0, faces[f][i], 0, SIZE);
+                for (int i = 0; i < SIZE; i++) {
+                    if (newFaces[f][i].length != SIZE) {
+                        throw new IllegalArgumentException("Each face must be " + SIZE + "×" + SIZE);
+                    }
+                    System.arraycopy(newFaces[f][i], 0, faces[f][i], 0, SIZE);
+                }
             }
+        } finally {
+            // keep the counters right even if a bad face stopped the copy half way
+            recount();
+            stateString = null;
         }
     }
 
@@ -553,38 +686,29 @@ public class Cube {
         return result;
     }
 
-    private int[][][] deepCopyFaces() {
-        int[][][] copy = new int[6][SIZE][SIZE];
-        for (int f = 0; f < 6; f++)
-            for (int i = 0; i < SIZE; i++)
-                System.arraycopy(faces[f][i], 0, copy[f][i], 0, SIZE);
-        return copy;
-    }
-
-
-
-
     /**
      * Converts the cube state to a 54-character string using facelet letters.
+     * The string is cached until the next change to the cube.
      */
     public String getStateString() {
-        int[][][] cube3D = deepCopyFaces();
-        Map<Integer, Character> faceletMap = new HashMap<>();
-        faceletMap.put(0, 'U');
-        faceletMap.put(1, 'R');
-        faceletMap.put(2, 'F');
-        faceletMap.put(3, 'D');
-        faceletMap.put(4, 'L');
-        faceletMap.put(5, 'B');
-        StringBuilder state = new StringBuilder();
-
-        for (int[][] face : cube3D) {
-            for (int[] row : face) {
-                for (int piece : row) {
-                    state.append(faceletMap.get(piece));
-                }
-            }
+        if (stateString == null) {
+            FaceletCodec.encode(faces, stateChars, 0);
+            stateString = new String(stateChars);
         }
-        return state.toString().trim();
+        return stateString;
+    }
+
+    /**
+     * Writes the 54 facelet letters into dst[off, off + 54) without allocating.
+     */
+    public void writeStateString(char[] dst, int off) {
+        FaceletCodec.encode(faces, dst, off);
+    }
+
+    /**
+     * Writes the 54 facelet letters as ASCII bytes at the buffer's position.
+     */
+    public void writeStateString(ByteBuffer dst) {
+        FaceletCodec.encode(faces, dst);
     }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+import java.util.Arrays;
+
+/**
+ * The 48 symmetries of the cube (24 rotations, each with and without a
+ * mirror) acting on flat facelet states (see {@link MoveEngine}).
+ *
+ * Conjugating a state by a symmetry turns or mirrors the whole cube and then
+ * renames the colours so the centres are back in U R F D L B order. The
+ * result is a legal state that is solved in exactly as many moves as the
+ * original, so states can be grouped into classes of up to 48 and handled
+ * through one representative: the lexicographically smallest conjugate.
+ *
+ * Symmetries 0 to 15 keep the U-D axis in place ({@link #N_SYM_UD});
+ * symmetry 0 is the identity. All state methods write into caller-provided
+ * arrays and allocate nothing.
+ */
+public final class CubeSymmetry {
+    public static final int N_SYM = 48;
+
+    /** Number of symmetries that map the U-D axis onto itself; they come first. */
+    public static final int N_SYM_UD = 16;
+
+    private static final int N = MoveEngine.N_FACELETS;
+
+    // Conjugate of state x: result[q] = FACE[s][x[SRC[s][q]]]
+    private static final byte[][] SRC = new byte[N_SYM][N];
+    private static final byte[][] FACE = new byte[N_SYM][6];
+    private static final byte[][] MOVE = new byte[N_SYM][MoveEngine.N_MOVES];
+    private static final byte[] INVERSE = new byte[N_SYM];
+    private static final byte[][] MULTIPLY = new byte[N_SYM][N_SYM];
+
+    // SRC and FACE laid out flat for the comparison loops, which try every symmetry in turn
+    private static final byte[] SRC_FLAT = new byte[N_SYM * N];
+    private static final byte[] FACE_FLAT = new byte[N_SYM * 6];
+
+    // Signed permutation matrix of each symmetry: axis i of the image is SIGN[s][i] * axis AXIS[s][i]
+    private static final int[][] AXIS = new int[N_SYM][3];
+    private static final int[][] SIGN = new int[N_SYM][3];
+
+    // Non-centre facelets; centres are the same in every conjugate
+    private static final byte[] COMPARED = new byte[N - 6];
+
+    static {
+        buildMatrices();
+        buildFaceletTables();
+        buildGroupTables();
+        buildMoveTables();
+        for (int p = 0, k = 0; p < N; p++)
+            if (p % 9 != 4) COMPARED[k++] = (byte) p;
+        for (int s = 0; s < N_SYM; s++) {
+            System.arraycopy(SRC[s], 0, SRC_FLAT, s * N, N);
+            System.arraycopy(FACE[s], 0, FACE_FLAT, s * 6, 6);
+        }
+    }
+
+    private CubeSymmetry() {
+    }
+
+    /**
+     * Enumerates the 48 signed 3x3 permutation matrices, identity first and
+     * the ones fixing the y (U-D) axis before the rest.
+     */
+    private static void buildMatrices() {
+        int[][] perms = {{0, 1, 2}, {2, 1, 0}, {1, 0, 2}, {0, 2, 1}, {1, 2, 0}, {2, 0, 1}};
+        int s = 0;
+        for (int[] perm : perms) {
+            for (int signs = 0; signs < 8; signs++) {
+                for (int i = 0; i < 3; i++) {
+                    AXIS[s][i] = perm[i];
+                    SIGN[s][i] = (signs >> i & 1) == 0 ? 1 : -1;
+                }
+                s++;
+            }
+        }
+    }
+
+    /**
+     * Places every facelet in space (x to R, y to U, z to F; the point is
+     * twice the cubie position plus the outward normal, so it is unique) and
+     * maps it through each matrix.
+     */
+    private static void buildFaceletTables() {
+        int[][] point = new int[N][];
+        int[] facelet = new int[7 * 7 * 7];
+        for (int p = 0; p < N; p++) {
+            int r = p % 9 / 3 - 1, c = p % 3 - 1;
+            switch (p / 9) {
+                case 0: point[p] = new int[]{2 * c, 3, 2 * r}; break;
+                case 1: point[p] = new int[]{3, -2 * r, -2 * c}; break;
+                case 2: point[p] = new int[]{2 * c, -2 * r, 3}; break;
+                case 3: point[p] = new int[]{2 * c, -3, -2 * r}; break;
+                case 4: point[p] = new int[]{-3, -2 * r, 2 * c}; break;
+                default: point[p] = new int[]{-2 * c, -2 * r, -3}; break;
+            }
+            facelet[key(point[p])] = p;
+        }
+
+        int[] image = new int[3];
+        for (int s = 0; s < N_SYM; s++) {
+            for (int p = 0; p < N; p++) {
+                for (int i = 0; i < 3; i++)
+                    image[i] = SIGN[s][i] * point[p][AXIS[s][i]];
+                SRC[s][facelet[key(image)]] = (byte) p;
+            }
+            // The centre of face f ends up on the face whose centre position receives it
+            for (int q = 4; q < N; q += 9)
+                FACE[s][SRC[s][q] / 9] = (byte) (q / 9);
+        }
+    }
+
+    private static int key(int[] point) {
+        return (point[0] + 3) * 49 + (point[1] + 3) * 7 + point[2] + 3;
+    }
+
+    private static void buildGroupTables() {
+        for (int a = 0; a < N_SYM; a++) {
+            for (int b = 0; b < N_SYM; b++) {
+                // (Ma * Mb) row i = SIGN_a[i] * row AXIS_a[i] of Mb
+                int found = -1;
+                for (int s = 0; s < N_SYM && found < 0; s++) {
+                    boolean same = true;
+                    for (int i = 0; i < 3 && same; i++) {
+                        same = AXIS[s][i] == AXIS[b][AXIS[a][i]]
+                                && SIGN[s][i] == SIGN[a][i] * SIGN[b][AXIS[a][i]];
+                    }
+                    if (same) found = s;
+                }
+                MULTIPLY[a][b] = (byte) found;
+                if (found == 0) INVERSE[a] = (byte) b;
+            }
+        }
+    }
+
+    /**
+     * Finds, for every symmetry and move, the move that does the same thing
+     * to the conjugated cube; mirrors turn clockwise moves into anticlockwise
+     * ones. Also serves as a check of the facelet tables.
+     */
+    private static void buildMoveTables() {
+        byte[] scratch = new byte[N];
+        byte[] turned = new byte[N];
+        byte[] conjugated = new byte[N];
+        byte[] candidate = new byte[N];
+        for (int s = 0; s < N_SYM; s++) {
+            for (int m = 0; m < MoveEngine.N_MOVES; m++) {
+                System.arraycopy(MoveEngine.solved(), 0, turned, 0, N);
+                MoveEngine.apply(turned, m, scratch);
+                conjugate(turned, s, conjugated);
+
+                int found = -1;
+                for (int n = 0; n < MoveEngine.N_MOVES && found < 0; n++) {
+                    System.arraycopy(MoveEngine.solved(), 0, candidate, 0, N);
+                    MoveEngine.apply(candidate, n, scratch);
+                    if (Arrays.equals(candidate, conjugated)) found = n;
+                }
+                if (found < 0) {
+                    throw new IllegalStateException("Symmetry " + s + " does not map " + MoveEngine.toNotation(m) + " to a move");
+                }
+                MOVE[s][m] = (byte) found;
+            }
+        }
+    }
+
+    /**
+     * Writes the conjugate of a state by a symmetry into dst, which must not be state.
+     */
+    public static void conjugate(byte[] state, int sym, byte[] dst) {
+        byte[] src = SRC[sym], face = FACE[sym];
+        for (int q = 0; q < N; q++)
+            dst[q] = face[state[src[q]]];
+    }
+
+    /**
+     * Writes the smallest conjugate of a state (comparing facelets in order)
+     * into dst, which must not be state.
+     * @return the symmetry s with dst = conjugate(state, s); the smallest one if several give dst
+     */
+    public static int canonicalize(byte[] state, byte[] dst) {
+        // Narrow a bit set of candidate symmetries one facelet at a time, keeping
+        // those with the smallest colour there; usually one is left after a facelet or two
+        long candidates = (1L << N_SYM) - 1;
+        for (int k = 0; k < COMPARED.length && (candidates & candidates - 1) != 0; k++) {
+            int q = COMPARED[k];
+            int min = Integer.MAX_VALUE;
+            long smallest = 0;
+            for (long rest = candidates; rest != 0; rest &= rest - 1) {
+                int s = Long.numberOfTrailingZeros(rest);
+                int color = FACE_FLAT[s * 6 + state[SRC_FLAT[s * N + q]]];
+                if (color < min) {
+                    min = color;
+                    smallest = 0;
+                }
+                if (color == min) smallest |= 1L << s;
+            }
+            candidates = smallest;
+        }
+        int best = Long.numberOfTrailingZeros(candidates);
+        conjugate(state, best, dst);
+        return best;
+    }
+
+    /**
+     * Returns a bit mask of the symmetries that leave a state unchanged (bit 0 is always set).
+     * The state's class has 48 / Long.bitCount(mask) members.
+     */
+    public static long stabilizer(byte[] state) {
+        long candidates = (1L << N_SYM) - 2;
+        for (int k = 0; k < COMPARED.length && candidates != 0; k++) {
+            int q = COMPARED[k];
+            for (long rest = candidates; rest != 0; rest &= rest - 1) {
+                int s = Long.numberOfTrailingZeros(rest);
+                if (FACE_FLAT[s * 6 + state[SRC_FLAT[s * N + q]]] != state[q]) candidates &= ~(1L << s);
+            }
+        }
+        return candidates | 1;
+    }
+
+    /**
+     * Returns the move that has the same effect on a conjugated cube as the given move on the original.
+     */
+    public static int conjugateMove(int sym, int move) {
+        return MOVE[sym][move];
+    }
+
+    /**
+     * Conjugates moves[0, length) into dst, which may be moves. A solution of
+     * conjugate(x, s) maps to a solution of x with the inverse of s.
+     */
+    public static void conjugateMoves(int sym, int[] moves, int length, int[] dst) {
+        byte[] table = MOVE[sym];
+        for (int i = 0; i < length; i++)
+            dst[i] = table[moves[i]];
+    }
+
+    /**
+     * Returns the symmetry that undoes the given one.
+     */
+    public static int inverse(int sym) {
+        return INVERSE[sym];
+    }
+
+    /**
+     * Returns the symmetry equal to conjugating by b and then by a.
+     */
+    public static int multiply(int a, int b) {
+        return MULTIPLY[a][b];
+    }
+
+    /**
+     * Returns the colour a symmetry gives to a face's stickers.
+     */
+    public static int face(int sym, int face) {
+        return FACE[sym][face];
+    }
+
+    /**
+     * Tells whether a symmetry mirrors the cube.
+     */
+    public static boolean isMirror(int sym) {
+        int[] axis = AXIS[sym], sign = SIGN[sym];
+        // Determinant of a signed permutation: product of signs times the permutation's sign
+        int det = sign[0] * sign[1] * sign[2];
+        boolean odd = (axis[0] == 0 ? 0 : 1) + (axis[1] == 1 ? 0 : 1) + (axis[2] == 2 ? 0 : 1) == 2;
+        return (odd ? -det : det) < 0;
+    }
+}
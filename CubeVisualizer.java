@@ -4,12 +4,22 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Stack;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.*;
 
 /**
  * GUI visualizer for the Rubik's Cube with manual controls.
  */
 public class CubeVisualizer {
+    /**
+     * Base URL of a remote solve API, e.g. -Dcube.solver.url=https://cuby-solve-api.onrender.com
+     * or a {@link SolveServer}. When unset, the in-process solver streams solutions instead.
+     */
+    private static final String SOLVER_URL = System.getProperty("cube.solver.url");
+
     /**
      * Returns the inverse of a Rubik's cube move
      * For example: R -> R', R' -> R, R2 -> R2
@@ -27,6 +37,86 @@ public class CubeVisualizer {
         }
     }
     
+    /**
+     * Shows the solutions of one local anytime search. It is made the active
+     * search on the EDT before it subscribes; once a cube change or another
+     * Solve replaces it, it stops its search and drops any pending updates.
+     */
+    private static final class LocalSolve implements Flow.Subscriber<String> {
+        private final String state;
+        private final AtomicReference<LocalSolve> active;
+        private final JLabel status;
+        private final JTextArea solutionArea;
+        private volatile Flow.Subscription subscription;
+        private volatile int bestLength = -1;
+
+        LocalSolve(String state, AtomicReference<LocalSolve> active, JLabel status, JTextArea solutionArea) {
+            this.state = state;
+            this.active = active;
+            this.status = status;
+            this.solutionArea = solutionArea;
+        }
+
+        private boolean isActive() {
+            return active.get() == this;
+        }
+
+        /**
+         * Stops the search; if it has not subscribed yet, onSubscribe does it.
+         */
+        void cancel() {
+            Flow.Subscription current = subscription;
+            if (current != null) current.cancel();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            // replaced while the subscription was on its way
+            if (!isActive()) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String solution) {
+            if (!isActive()) return;
+            SolutionVerifier.Result result = SolutionVerifier.verify(state, solution);
+            if (!result.isSolved()) return;
+            int length = result.getSimplified().length;
+            bestLength = length;
+            SwingUtilities.invokeLater(() -> {
+                // the cube may have changed since this was posted
+                if (!isActive()) return;
+                status.setText("Found " + length + " moves, searching for shorter...");
+                solutionArea.setText(result.getSimplifiedNotation());
+            });
+        }
+
+        @Override
+        public void onError(Throwable ex) {
+            SwingUtilities.invokeLater(() -> {
+                if (!isActive()) return;
+                status.setText("Error getting solution");
+                solutionArea.setText("Error: " + ex.getMessage());
+            });
+        }
+
+        @Override
+        public void onComplete() {
+            // the finished search stays active so its last updates still get through
+            int length = bestLength;
+            SwingUtilities.invokeLater(() -> {
+                if (!isActive()) return;
+                status.setText(length < 0
+                        ? "No solution found in time"
+                        : "Solution found (" + length + " moves)");
+            });
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Rubik's Cube");
@@ -67,14 +157,31 @@ public class CubeVisualizer {
             // Status display
             JLabel status = new JLabel("Last Move: none");
 
+            // Solution display, filled in by the Solve button below
+            JTextArea solutionArea = new JTextArea(3, 20);
+            solutionArea.setEditable(false);
+
+            // Local solver state: the running search, stopped whenever the cube changes
+            ExecutorService localSolver = Executors.newSingleThreadExecutor();
+            // build the solver tables now, so the first Solve shows a solution at once
+            if (SOLVER_URL == null) localSolver.execute(TwoPhaseSolver::init);
+            AtomicReference<LocalSolve> activeSolve = new AtomicReference<>();
+            Runnable stopSolve = () -> {
+                LocalSolve previous = activeSolve.getAndSet(null);
+                if (previous != null) previous.cancel();
+                solutionArea.setText("");
+            };
+
             // Control buttons for cube manipulation
             JPanel controlPanel = new JPanel(new FlowLayout());
             for (String mv : Cube.MOVES) {
                 JButton btn = new JButton(mv);
                 btn.addActionListener(e -> {
+                    stopSolve.run();
                     cube.move(mv);
                     moveHistory.push(mv); // Store the move in history
-                    status.setText("Last Move: " + mv + (cube.isSolved() ? " | SOLVED!" : ""));
+                    status.setText("Last Move: " + mv + (cube.isSolved() ? " | SOLVED!"
+                            : " | " + cube.getSolvedPieces() + "/20 pieces solved"));
                     drawPanel.repaint();
                 });
                 controlPanel.add(btn);
@@ -83,6 +190,7 @@ public class CubeVisualizer {
             // Reset button - returns cube to solved state
             JButton resetBtn = new JButton("Reset");
             resetBtn.addActionListener(e -> {
+                stopSolve.run();
                 cube.reset();
                 status.setText("Last Move: reset");
                 drawPanel.repaint();
@@ -91,6 +199,7 @@ public class CubeVisualizer {
             // Scramble button - randomizes cube state
             JButton scrambleBtn = new JButton("Scramble");
             scrambleBtn.addActionListener(e -> {
+                stopSolve.run();
                 cube.reset();
                 cube.scramble(scrambleCount);
                 status.setText("Last Move: scramble");
@@ -101,6 +210,7 @@ public class CubeVisualizer {
             JButton undoBtn = new JButton("Undo");
             undoBtn.addActionListener(e -> {
                 if (!moveHistory.isEmpty()) {
+                    stopSolve.run();
                     String lastMove = moveHistory.pop();
                     String inverseMove = getInverseMove(lastMove);
                     cube.move(inverseMove);
@@ -140,38 +250,22 @@ public class CubeVisualizer {
             
             // Solution display area
             JPanel solutionPanel = new JPanel(new BorderLayout(5, 5));
-            JTextArea solutionArea = new JTextArea(3, 20);
-            solutionArea.setEditable(false);
             solutionPanel.add(new JLabel("Solution:"), BorderLayout.NORTH);
             solutionPanel.add(new JScrollPane(solutionArea), BorderLayout.CENTER);
             
-            // Solve button - connects to external solver
+            // Solve button - streams solutions from the local solver, or asks the remote API
             JButton solveBtn = new JButton("Solve");
             
             // Function to apply custom cube state from text input
             applyStateBtn.addActionListener(e -> {
                 try {
-                    String[] values = stateInput.getText().split(",");
-                    if (values.length != 54) {
-                        throw new IllegalArgumentException("Exactly 54 values required (9 per face)");
-                    }
-                    
                     int[][][] newState = new int[6][3][3];
-                    int index = 0;
-                    
+
                     // Parse input into cube representation
-                    for (int f = 0; f < 6; f++) {
-                        for (int i = 0; i < 3; i++) {
-                            for (int j = 0; j < 3; j++) {
-                                newState[f][i][j] = Integer.parseInt(values[index++].trim());
-                                if (newState[f][i][j] < 0 || newState[f][i][j] > 5) {
-                                    throw new IllegalArgumentException("Values must be between 0-5");
-                                }
-                            }
-                        }
-                    }
+                    FaceletCodec.decodeCsv(stateInput.getText(), newState);
                     
                     // Apply to cube
+                    stopSolve.run();
                     cube.setFaces(newState);
                     status.setText("Applied custom cube state");
                     drawPanel.repaint();
@@ -184,18 +278,29 @@ public class CubeVisualizer {
             
             // Function to connect to solver server
             solveBtn.addActionListener(e -> {
+                // stop any earlier search before starting on the current state
+                stopSolve.run();
                 status.setText("Requesting solution...");
                 solutionArea.setText("Working...");
                 drawPanel.repaint();
                 String cubeStateString = cube.getStateString();
 
+                if (SOLVER_URL == null) {
+                    // register before subscribing, so a cube change right after this cancels it
+                    LocalSolve solve = new LocalSolve(cubeStateString, activeSolve, status, solutionArea);
+                    activeSolve.set(solve);
+                    TwoPhaseSolver.solveProgressively(cubeStateString, TwoPhaseSolver.DEFAULT_TIMEOUT_MILLIS, localSolver)
+                            .subscribe(solve);
+                    return;
+                }
+
                 // fire off the HTTP call in a background thread so the UI stays responsive
                 new Thread(() -> {
                     try {
                         // assume you already have:
                         // String cubeStateString = ...;  // your 54-char or CSV state string
 
-                        String apiUrl = "https://cuby-solve-api.onrender.com/solve/" + cubeStateString;
+                        String apiUrl = SOLVER_URL + "/solve/" + cubeStateString;
 
                         HttpClient client = HttpClient.newHttpClient();
                         HttpRequest request = HttpRequest.newBuilder()
@@ -206,10 +311,18 @@ public class CubeVisualizer {
                         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
                         String solution = response.body();
 
+                        // replay the answer on a scratch state before showing it
+                        SolutionVerifier.Result result = SolutionVerifier.verify(cubeStateString, solution);
+
                         // back onto the EDT to update Swing components
                         SwingUtilities.invokeLater(() -> {
-                            status.setText("Solution retrieved");
-                            solutionArea.setText(solution);
+                            if (result.isSolved()) {
+                                status.setText("Solution verified (" + result.getSimplified().length + " moves)");
+                                solutionArea.setText(result.getSimplifiedNotation());
+                            } else {
+                                status.setText("Solver returned an invalid solution");
+                                solutionArea.setText(result.getError() + "\n" + solution);
+                            }
                         });
 
                     } catch (Exception ex) {
@@ -255,4 +368,4 @@ public class CubeVisualizer {
             frame.setVisible(true);
         });
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
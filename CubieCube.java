@@ -0,0 +1,382 @@
+import java.util.SplittableRandom;
+
+/**
+ * Cube described by its pieces: which corner and edge sits in each slot and
+ * how it is twisted or flipped. Used by the solver, which works on
+ * coordinates derived from this representation instead of on facelets.
+ *
+ * Piece order follows the usual two-phase convention:
+ * corners URF, UFL, ULB, UBR, DFR, DLF, DBL, DRB and
+ * edges UR, UF, UL, UB, DR, DF, DL, DB, FR, FL, BL, BR.
+ */
+public final class CubieCube {
+    public static final int N_CORNERS = 8;
+    public static final int N_EDGES = 12;
+
+    /** First of the four UD-slice edges (FR, FL, BL, BR). */
+    static final int FR = 8;
+
+    // Facelet indices (same numbering as MoveEngine) of each corner slot,
+    // listed clockwise starting with the U or D facelet
+    static final int[][] CORNER_FACELET = {
+        {8, 9, 20}, {6, 18, 38}, {0, 36, 47}, {2, 45, 11},
+        {29, 26, 15}, {27, 44, 24}, {33, 53, 42}, {35, 17, 51}
+    };
+
+    // Facelet indices of each edge slot; the U/D (or F/B for slice edges) facelet first
+    static final int[][] EDGE_FACELET = {
+        {5, 10}, {7, 19}, {3, 37}, {1, 46}, {32, 16}, {28, 25},
+        {30, 43}, {34, 52}, {23, 12}, {21, 41}, {50, 39}, {48, 14}
+    };
+
+    // Colours (Cube face order U=0 R=1 F=2 D=3 L=4 B=5) of each corner and edge
+    static final int[][] CORNER_COLOR = {
+        {0, 1, 2}, {0, 2, 4}, {0, 4, 5}, {0, 5, 1},
+        {3, 2, 1}, {3, 4, 2}, {3, 5, 4}, {3, 1, 5}
+    };
+
+    static final int[][] EDGE_COLOR = {
+        {0, 1}, {0, 2}, {0, 4}, {0, 5}, {3, 1}, {3, 2},
+        {3, 4}, {3, 5}, {2, 1}, {2, 4}, {5, 4}, {5, 1}
+    };
+
+    // Clockwise quarter turn of each face, as "slot i receives piece cp[i]"
+    private static final CubieCube[] FACE_TURNS = {
+        new CubieCube(new int[]{3, 0, 1, 2, 4, 5, 6, 7}, new int[]{0, 0, 0, 0, 0, 0, 0, 0},
+                      new int[]{3, 0, 1, 2, 4, 5, 6, 7, 8, 9, 10, 11}, new int[12]),
+        new CubieCube(new int[]{4, 1, 2, 0, 7, 5, 6, 3}, new int[]{2, 0, 0, 1, 1, 0, 0, 2},
+                      new int[]{8, 1, 2, 3, 11, 5, 6, 7, 4, 9, 10, 0}, new int[12]),
+        new CubieCube(new int[]{1, 5, 2, 3, 0, 4, 6, 7}, new int[]{1, 2, 0, 0, 2, 1, 0, 0},
+                      new int[]{0, 9, 2, 3, 4, 8, 6, 7, 1, 5, 10, 11}, new int[]{0, 1, 0, 0, 0, 1, 0, 0, 1, 1, 0, 0}),
+        new CubieCube(new int[]{0, 1, 2, 3, 5, 6, 7, 4}, new int[]{0, 0, 0, 0, 0, 0, 0, 0},
+                      new int[]{0, 1, 2, 3, 5, 6, 7, 4, 8, 9, 10, 11}, new int[12]),
+        new CubieCube(new int[]{0, 2, 6, 3, 4, 1, 5, 7}, new int[]{0, 1, 2, 0, 0, 2, 1, 0},
+                      new int[]{0, 1, 10, 3, 4, 5, 9, 7, 8, 2, 6, 11}, new int[12]),
+        new CubieCube(new int[]{0, 1, 3, 7, 4, 5, 2, 6}, new int[]{0, 0, 1, 2, 0, 0, 2, 1},
+                      new int[]{0, 1, 2, 11, 4, 5, 6, 10, 8, 9, 3, 7}, new int[]{0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 1, 1})
+    };
+
+    private static final int[][] BINOMIAL = new int[N_EDGES + 1][N_EDGES + 1];
+
+    static {
+        for (int n = 0; n <= N_EDGES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++)
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k < n ? BINOMIAL[n - 1][k] : 0);
+        }
+    }
+
+    final int[] cp = new int[N_CORNERS];
+    final int[] co = new int[N_CORNERS];
+    final int[] ep = new int[N_EDGES];
+    final int[] eo = new int[N_EDGES];
+
+    /**
+     * Creates a solved cube.
+     */
+    public CubieCube() {
+        for (int i = 0; i < N_CORNERS; i++) cp[i] = i;
+        for (int i = 0; i < N_EDGES; i++) ep[i] = i;
+    }
+
+    private CubieCube(int[] cp, int[] co, int[] ep, int[] eo) {
+        System.arraycopy(cp, 0, this.cp, 0, N_CORNERS);
+        System.arraycopy(co, 0, this.co, 0, N_CORNERS);
+        System.arraycopy(ep, 0, this.ep, 0, N_EDGES);
+        System.arraycopy(eo, 0, this.eo, 0, N_EDGES);
+    }
+
+    /**
+     * Creates a copy of another cube.
+     */
+    public CubieCube(CubieCube other) {
+        this(other.cp, other.co, other.ep, other.eo);
+    }
+
+    /**
+     * Builds the cubie representation of a facelet state (see {@link MoveEngine}).
+     * @throws IllegalArgumentException if the stickers do not form a solvable cube
+     */
+    public static CubieCube fromFacelets(byte[] facelets) {
+        if (facelets.length != MoveEngine.N_FACELETS) {
+            throw new IllegalArgumentException("Exactly 54 facelets required");
+        }
+        int[] count = new int[6];
+        for (byte color : facelets) {
+            if (color < 0 || color > 5) throw new IllegalArgumentException("Invalid colour: " + color);
+            count[color]++;
+        }
+        for (int color = 0; color < 6; color++) {
+            if (count[color] != 9) throw new IllegalArgumentException("Each colour must appear exactly 9 times");
+            if (facelets[color * 9 + 4] != color) throw new IllegalArgumentException("Centres must be in U R F D L B order");
+        }
+
+        CubieCube cube = new CubieCube();
+        boolean[] cornerSeen = new boolean[N_CORNERS];
+        for (int i = 0; i < N_CORNERS; i++) {
+            int ori = 0;
+            while (ori < 3 && facelets[CORNER_FACELET[i][ori]] != 0 && facelets[CORNER_FACELET[i][ori]] != 3) ori++;
+            if (ori == 3) throw new IllegalArgumentException("Corner " + i + " has no U or D sticker");
+            int col1 = facelets[CORNER_FACELET[i][(ori + 1) % 3]];
+            int col2 = facelets[CORNER_FACELET[i][(ori + 2) % 3]];
+            int piece = -1;
+            for (int j = 0; j < N_CORNERS; j++) {
+                if (CORNER_COLOR[j][0] == facelets[CORNER_FACELET[i][ori]]
+                        && CORNER_COLOR[j][1] == col1 && CORNER_COLOR[j][2] == col2) {
+                    piece = j;
+                    break;
+                }
+            }
+            if (piece < 0 || cornerSeen[piece]) throw new IllegalArgumentException("Corner " + i + " is invalid or duplicated");
+            cornerSeen[piece] = true;
+            cube.cp[i] = piece;
+            cube.co[i] = ori;
+        }
+
+        boolean[] edgeSeen = new boolean[N_EDGES];
+        for (int i = 0; i < N_EDGES; i++) {
+            int a = facelets[EDGE_FACELET[i][0]];
+            int b = facelets[EDGE_FACELET[i][1]];
+            int piece = -1;
+            for (int j = 0; j < N_EDGES; j++) {
+                if (EDGE_COLOR[j][0] == a && EDGE_COLOR[j][1] == b) {
+                    piece = j;
+                    cube.eo[i] = 0;
+                    break;
+                }
+                if (EDGE_COLOR[j][0] == b && EDGE_COLOR[j][1] == a) {
+                    piece = j;
+                    cube.eo[i] = 1;
+                    break;
+                }
+            }
+            if (piece < 0 || edgeSeen[piece]) throw new IllegalArgumentException("Edge " + i + " is invalid or duplicated");
+            edgeSeen[piece] = true;
+            cube.ep[i] = piece;
+        }
+
+        String error = cube.verify();
+        if (error != null) throw new IllegalArgumentException(error);
+        return cube;
+    }
+
+    /**
+     * Writes the facelet colours of this cube into a state array.
+     */
+    public void toFacelets(byte[] facelets) {
+        for (int color = 0; color < 6; color++)
+            facelets[color * 9 + 4] = (byte) color;
+        for (int i = 0; i < N_CORNERS; i++)
+            for (int n = 0; n < 3; n++)
+                facelets[CORNER_FACELET[i][(n + co[i]) % 3]] = (byte) CORNER_COLOR[cp[i]][n];
+        for (int i = 0; i < N_EDGES; i++)
+            for (int n = 0; n < 2; n++)
+                facelets[EDGE_FACELET[i][(n + eo[i]) % 2]] = (byte) EDGE_COLOR[ep[i]][n];
+    }
+
+    /**
+     * Returns the facelet colours of this cube.
+     */
+    public byte[] toFacelets() {
+        byte[] facelets = new byte[MoveEngine.N_FACELETS];
+        toFacelets(facelets);
+        return facelets;
+    }
+
+    /**
+     * Checks that this is a reachable cube.
+     * @return a description of the problem, or null if the cube is solvable
+     */
+    public String verify() {
+        int twist = 0, flip = 0;
+        for (int c : co) twist += c;
+        for (int e : eo) flip += e;
+        if (twist % 3 != 0) return "Twisted corner";
+        if (flip % 2 != 0) return "Flipped edge";
+        if (parity(cp) != parity(ep)) return "Parity error: two pieces are swapped";
+        return null;
+    }
+
+    /**
+     * Replaces this cube with this * other, i.e. applies other after this.
+     */
+    public void multiply(CubieCube other) {
+        int[] ncp = new int[N_CORNERS], nco = new int[N_CORNERS];
+        int[] nep = new int[N_EDGES], neo = new int[N_EDGES];
+        for (int i = 0; i < N_CORNERS; i++) {
+            ncp[i] = cp[other.cp[i]];
+            nco[i] = (co[other.cp[i]] + other.co[i]) % 3;
+        }
+        for (int i = 0; i < N_EDGES; i++) {
+            nep[i] = ep[other.ep[i]];
+            neo[i] = (eo[other.ep[i]] + other.eo[i]) % 2;
+        }
+        System.arraycopy(ncp, 0, cp, 0, N_CORNERS);
+        System.arraycopy(nco, 0, co, 0, N_CORNERS);
+        System.arraycopy(nep, 0, ep, 0, N_EDGES);
+        System.arraycopy(neo, 0, eo, 0, N_EDGES);
+    }
+
+    /**
+     * Applies a move code (see {@link MoveEngine}).
+     */
+    public void move(int move) {
+        CubieCube turn = FACE_TURNS[MoveEngine.face(move)];
+        for (int k = MoveEngine.power(move); k > 0; k--)
+            multiply(turn);
+    }
+
+    /**
+     * Returns a uniformly random solvable cube.
+     */
+    public static CubieCube random(SplittableRandom random) {
+        CubieCube cube = new CubieCube();
+        shuffle(cube.cp, random);
+        shuffle(cube.ep, random);
+        if (parity(cube.cp) != parity(cube.ep)) {
+            // swapping two edges fixes the parity and keeps the distribution uniform
+            int t = cube.ep[0];
+            cube.ep[0] = cube.ep[1];
+            cube.ep[1] = t;
+        }
+        cube.setTwist(random.nextInt(2187));
+        cube.setFlip(random.nextInt(2048));
+        return cube;
+    }
+
+    private static void shuffle(int[] values, SplittableRandom random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+    }
+
+    private static int parity(int[] perm) {
+        int swaps = 0;
+        for (int i = 0; i < perm.length; i++)
+            for (int j = i + 1; j < perm.length; j++)
+                if (perm[i] > perm[j]) swaps++;
+        return swaps & 1;
+    }
+
+    // ---- Coordinates used by the two-phase solver ----
+
+    /** Corner orientation, 0 to 2186. */
+    int getTwist() {
+        int twist = 0;
+        for (int i = 0; i < N_CORNERS - 1; i++)
+            twist = 3 * twist + co[i];
+        return twist;
+    }
+
+    void setTwist(int twist) {
+        int sum = 0;
+        for (int i = N_CORNERS - 2; i >= 0; i--) {
+            co[i] = twist % 3;
+            sum += co[i];
+            twist /= 3;
+        }
+        co[N_CORNERS - 1] = (3 - sum % 3) % 3;
+    }
+
+    /** Edge orientation, 0 to 2047. */
+    int getFlip() {
+        int flip = 0;
+        for (int i = 0; i < N_EDGES - 1; i++)
+            flip = 2 * flip + eo[i];
+        return flip;
+    }
+
+    void setFlip(int flip) {
+        int sum = 0;
+        for (int i = N_EDGES - 2; i >= 0; i--) {
+            eo[i] = flip & 1;
+            sum += eo[i];
+            flip >>= 1;
+        }
+        eo[N_EDGES - 1] = sum & 1;
+    }
+
+    /** Slots of the four UD-slice edges, ignoring their order, 0 to 494. 0 when they are in the slice. */
+    int getSlice() {
+        int slice = 0, seen = 0;
+        for (int j = N_EDGES - 1; j >= 0; j--) {
+            if (ep[j] >= FR) {
+                slice += BINOMIAL[N_EDGES - 1 - j][seen + 1];
+                seen++;
+            }
+        }
+        return slice;
+    }
+
+    void setSlice(int slice) {
+        int remaining = 4, other = 0;
+        for (int j = 0; j < N_EDGES; j++) {
+            int threshold = remaining > 0 ? BINOMIAL[N_EDGES - 1 - j][remaining] : Integer.MAX_VALUE;
+            if (slice >= threshold) {
+                slice -= threshold;
+                ep[j] = FR + 4 - remaining;
+                remaining--;
+            } else {
+                ep[j] = other++;
+            }
+        }
+    }
+
+    /** Corner permutation, 0 to 40319. */
+    int getCornerPerm() {
+        return rank(cp, 0, N_CORNERS, 0);
+    }
+
+    void setCornerPerm(int index) {
+        unrank(index, cp, 0, N_CORNERS, 0);
+    }
+
+    /** Permutation of the eight U and D edges; only meaningful in phase 2. */
+    int getUdEdgePerm() {
+        return rank(ep, 0, 8, 0);
+    }
+
+    void setUdEdgePerm(int index) {
+        unrank(index, ep, 0, 8, 0);
+    }
+
+    /** Permutation of the four slice edges within the slice; only meaningful in phase 2. */
+    int getSlicePerm() {
+        return rank(ep, FR, 4, FR);
+    }
+
+    void setSlicePerm(int index) {
+        unrank(index, ep, FR, 4, FR);
+    }
+
+    // Lehmer code of values[off, off + n), whose entries are base .. base + n - 1
+    private static int rank(int[] values, int off, int n, int base) {
+        int index = 0;
+        for (int i = 0; i < n; i++) {
+            int smaller = 0;
+            for (int j = i + 1; j < n; j++)
+                if (values[off + j] < values[off + i]) smaller++;
+            index = index * (n - i) + smaller;
+        }
+        return index;
+    }
+
+    private static void unrank(int index, int[] values, int off, int n, int base) {
+        int[] digits = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            digits[i] = index % (n - i);
+            index /= (n - i);
+        }
+        boolean[] used = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int k = digits[i];
+            int v = 0;
+            while (used[v] || k-- > 0) v++;
+            used[v] = true;
+            values[off + i] = base + v;
+        }
+    }
+}
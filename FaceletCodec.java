@@ -0,0 +1,150 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Converts cube states to and from the 54-character facelet string used by
+ * the solve API ("UUUUUUUUURRRRRRRRR..."), and parses the comma-separated
+ * 0-5 colour lists typed into the visualizer.
+ *
+ * All methods use fixed lookup tables. The overloads that write into a
+ * caller-provided array or buffer allocate nothing; {@link #encode(byte[])}
+ * returns a new String.
+ */
+public final class FaceletCodec {
+    public static final int LENGTH = 54;
+
+    private static final int SIZE = 3;
+
+    // Colour (Cube face order) to facelet letter, and back; -1 marks letters that are not faces
+    private static final char[] COLOR_TO_CHAR = {'U', 'R', 'F', 'D', 'L', 'B'};
+    private static final byte[] CHAR_TO_COLOR = new byte[128];
+
+    static {
+        Arrays.fill(CHAR_TO_COLOR, (byte) -1);
+        for (int color = 0; color < COLOR_TO_CHAR.length; color++)
+            CHAR_TO_COLOR[COLOR_TO_CHAR[color]] = (byte) color;
+    }
+
+    private FaceletCodec() {
+    }
+
+    /**
+     * Returns the facelet letter of a colour.
+     */
+    public static char toChar(int color) {
+        return COLOR_TO_CHAR[color];
+    }
+
+    /**
+     * Returns the colour of a facelet letter, or -1 if it is not one of U R F D L B.
+     */
+    public static int toColor(char c) {
+        return c < 128 ? CHAR_TO_COLOR[c] : -1;
+    }
+
+    /**
+     * Writes the 54 facelet letters of a face array into dst[off, off + 54).
+     */
+    public static void encode(int[][][] faces, char[] dst, int off) {
+        for (int f = 0; f < 6; f++)
+            for (int i = 0; i < SIZE; i++)
+                for (int j = 0; j < SIZE; j++)
+                    dst[off++] = COLOR_TO_CHAR[faces[f][i][j]];
+    }
+
+    /**
+     * Writes the 54 facelet letters of a face array as ASCII bytes at the buffer's position.
+     */
+    public static void encode(int[][][] faces, ByteBuffer dst) {
+        for (int f = 0; f < 6; f++)
+            for (int i = 0; i < SIZE; i++)
+                for (int j = 0; j < SIZE; j++)
+                    dst.put((byte) COLOR_TO_CHAR[faces[f][i][j]]);
+    }
+
+    /**
+     * Writes the 54 facelet letters of a flat state (see {@link MoveEngine}) into dst[off, off + 54).
+     */
+    public static void encode(byte[] state, char[] dst, int off) {
+        for (int p = 0; p < LENGTH; p++)
+            dst[off + p] = COLOR_TO_CHAR[state[p]];
+    }
+
+    /**
+     * Returns the facelet string of a flat state.
+     */
+    public static String encode(byte[] state) {
+        char[] chars = new char[LENGTH];
+        encode(state, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Reads a 54-character facelet string into a flat state.
+     * @throws IllegalArgumentException if the string has the wrong length or an unknown letter
+     */
+    public static void decode(CharSequence facelets, byte[] dst) {
+        checkLength(facelets);
+        for (int p = 0; p < LENGTH; p++)
+            dst[p] = (byte) colorAt(facelets, p);
+    }
+
+    /**
+     * Reads a 54-character facelet string into a 6x3x3 face array.
+     * @throws IllegalArgumentException if the string has the wrong length or an unknown letter
+     */
+    public static void decode(CharSequence facelets, int[][][] dst) {
+        checkLength(facelets);
+        for (int p = 0; p < LENGTH; p++)
+            dst[p / 9][(p % 9) / SIZE][p % SIZE] = colorAt(facelets, p);
+    }
+
+    /**
+     * Reads 54 comma-separated colour numbers (0-5) into a 6x3x3 face array.
+     * Whitespace around the numbers is ignored.
+     * @throws IllegalArgumentException if there are not exactly 54 values or one is out of range
+     */
+    public static void decodeCsv(CharSequence text, int[][][] dst) {
+        int length = text.length();
+        int count = 0;
+        int pos = 0;
+        while (true) {
+            // one field: optional blanks, digits, optional blanks
+            while (pos < length && Character.isWhitespace(text.charAt(pos))) pos++;
+            int value = 0, digits = 0;
+            while (pos < length && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+                value = value * 10 + (text.charAt(pos++) - '0');
+                if (++digits > 9) throw new IllegalArgumentException("Value too long at position " + pos);
+            }
+            while (pos < length && Character.isWhitespace(text.charAt(pos))) pos++;
+            if (digits == 0) {
+                if (pos < length || count > 0) {
+                    throw new IllegalArgumentException("Expected a number at position " + pos);
+                }
+                break;
+            }
+
+            if (count >= LENGTH) throw new IllegalArgumentException("Exactly 54 values required (9 per face)");
+            if (value > 5) throw new IllegalArgumentException("Values must be between 0-5");
+            dst[count / 9][(count % 9) / SIZE][count % SIZE] = value;
+            count++;
+
+            if (pos == length) break;
+            if (text.charAt(pos) != ',') throw new IllegalArgumentException("Expected ',' at position " + pos);
+            pos++;
+        }
+        if (count != LENGTH) throw new IllegalArgumentException("Exactly 54 values required (9 per face)");
+    }
+
+    private static void checkLength(CharSequence facelets) {
+        if (facelets.length() != LENGTH) {
+            throw new IllegalArgumentException("Exactly 54 facelets required, got " + facelets.length());
+        }
+    }
+
+    private static int colorAt(CharSequence facelets, int p) {
+        int color = toColor(facelets.charAt(p));
+        if (color < 0) throw new IllegalArgumentException("Invalid facelet '" + facelets.charAt(p) + "' at " + p);
+        return color;
+    }
+}
@@ -0,0 +1,332 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the {@code /solve/<state>} endpoint.
+ *
+ * Requests are issued on a fixed schedule (rate per second) whether or not
+ * earlier ones have finished, each on its own (virtual, when available)
+ * thread, and latency is measured from the scheduled start so a slow server
+ * cannot hide queueing delay. States come from seeded {@link Cube#scramble}
+ * calls, so two runs with the same seed send the same requests.
+ *
+ * Without --url a {@link StubSolveServer} is started in-process. --verify
+ * checks every 200 response with {@link SolutionVerifier}; use it against a
+ * real solver, since the stub's canned answer does not solve anything.
+ * --fresh-client builds a new HttpClient per request, as the visualizer's
+ * remote path does. Results are printed as a single JSON object.
+ *
+ * Usage: java LoadTest [--url http://host:port] [--rate 500] [--duration 30]
+ *                      [--max-in-flight 10000] [--seed 1] [--scramble-length 25]
+ *                      [--states 10000] [--warmup 50] [--timeout-ms 10000] [--fresh-client] [--verify]
+ *                      [--stub-latency-ms 50] [--stub-jitter-ms 20] [--stub-error-rate 0.01]
+ */
+public final class LoadTest {
+    private String url;
+    private double rate = 500;
+    private long durationSeconds = 30;
+    private int maxInFlight = 10_000;
+    private long seed = 1;
+    private int scrambleLength = 25;
+    private int stateCount = 10_000;
+    private int warmupRequests = 50;
+    private long timeoutMillis = 10_000;
+    private boolean freshClient;
+    private boolean verify;
+    private long stubLatencyMillis = 50;
+    private long stubJitterMillis = 20;
+    private double stubErrorRate = 0.01;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder invalidSolutions = new LongAdder();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    private static LoadTest parse(String[] args) {
+        LoadTest test = new LoadTest();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url": test.url = args[++i]; break;
+                case "--rate": test.rate = Double.parseDouble(args[++i]); break;
+                case "--duration": test.durationSeconds = Long.parseLong(args[++i]); break;
+                case "--max-in-flight": test.maxInFlight = Integer.parseInt(args[++i]); break;
+                case "--seed": test.seed = Long.parseLong(args[++i]); break;
+                case "--scramble-length": test.scrambleLength = Integer.parseInt(args[++i]); break;
+                case "--states": test.stateCount = Integer.parseInt(args[++i]); break;
+                case "--warmup": test.warmupRequests = Integer.parseInt(args[++i]); break;
+                case "--timeout-ms": test.timeoutMillis = Long.parseLong(args[++i]); break;
+                case "--fresh-client": test.freshClient = true; break;
+                case "--verify": test.verify = true; break;
+                case "--stub-latency-ms": test.stubLatencyMillis = Long.parseLong(args[++i]); break;
+                case "--stub-jitter-ms": test.stubJitterMillis = Long.parseLong(args[++i]); break;
+                case "--stub-error-rate": test.stubErrorRate = Double.parseDouble(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        return test;
+    }
+
+    /**
+     * Builds the request states from seeded scrambles; state i uses seed + i.
+     */
+    private String[] buildStates() {
+        String[] states = new String[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            Cube cube = new Cube();
+            cube.scramble(scrambleLength, seed + i);
+            states[i] = cube.getStateString();
+        }
+        return states;
+    }
+
+    private String run() throws InterruptedException {
+        String[] states = buildStates();
+        HttpClient sharedClient = freshClient ? null : newClient();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ExecutorService workers = VirtualThreads.newPerTaskExecutor();
+        warmUp(sharedClient != null ? sharedClient : newClient(), states);
+
+        long total = (long) (rate * durationSeconds);
+        double intervalNanos = 1e9 / rate;
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + (long) (i * intervalNanos);
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            // Open loop: if the client is saturated the request is counted, not delayed
+            if (!inFlight.tryAcquire()) {
+                dropped.increment();
+                continue;
+            }
+            sent.increment();
+            String state = states[(int) (i % states.length)];
+            long sequence = i;
+            workers.execute(() -> {
+                try {
+                    send(sharedClient != null ? sharedClient : newClient(), state, sequence, scheduled);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(timeoutMillis + 5000, TimeUnit.MILLISECONDS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        return report(elapsedSeconds);
+    }
+
+    /**
+     * Sends a few unrecorded requests one at a time, so connection setup and
+     * JIT compilation do not show up as a backlog at the start of the run.
+     */
+    private void warmUp(HttpClient client, String[] states) throws InterruptedException {
+        for (int i = 0; i < warmupRequests; i++) {
+            try {
+                // negative sequence numbers keep warm-up draws apart from the measured ones
+                client.send(request(states[i % states.length], -1 - i), HttpResponse.BodyHandlers.discarding());
+            } catch (IOException ex) {
+                // Failures here surface again in the measured run
+            }
+        }
+    }
+
+    /**
+     * Builds a request carrying its sequence number, which the stub server
+     * uses to draw that request's delay and failure.
+     */
+    private HttpRequest request(String state, long sequence) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url + "/solve/" + state))
+                .header(StubSolveServer.SEQUENCE_HEADER, String.valueOf(sequence))
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .GET()
+                .build();
+    }
+
+    private HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeoutMillis))
+                .build();
+    }
+
+    private void send(HttpClient client, String state, long sequence, long scheduled) {
+        String outcome;
+        try {
+            HttpResponse<String> response = client.send(request(state, sequence), HttpResponse.BodyHandlers.ofString());
+            outcome = String.valueOf(response.statusCode());
+            if (response.statusCode() == 200
+                    && (!verify || SolutionVerifier.verify(state, response.body()).isSolved())) {
+                ok.increment();
+            } else {
+                if (response.statusCode() == 200) {
+                    invalidSolutions.increment();
+                    outcome = "invalid_solution";
+                }
+                errors.increment();
+            }
+        } catch (IOException ex) {
+            outcome = ex.getClass().getSimpleName();
+            errors.increment();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        latency.record(System.nanoTime() - scheduled);
+        outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    private String report(double elapsedSeconds) {
+        long completed = ok.sum() + errors.sum();
+        StringBuilder json = new StringBuilder();
+        json.append('{');
+        field(json, "url", '"' + url + '"');
+        field(json, "seed", String.valueOf(seed));
+        field(json, "target_rate", String.valueOf(rate));
+        field(json, "duration_s", String.format("%.3f", elapsedSeconds));
+        field(json, "client", freshClient ? "\"fresh\"" : "\"shared\"");
+        field(json, "virtual_threads", String.valueOf(VirtualThreads.isAvailable()));
+        field(json, "sent", String.valueOf(sent.sum()));
+        field(json, "dropped", String.valueOf(dropped.sum()));
+        field(json, "completed", String.valueOf(completed));
+        field(json, "ok", String.valueOf(ok.sum()));
+        field(json, "errors", String.valueOf(errors.sum()));
+        field(json, "invalid_solutions", String.valueOf(invalidSolutions.sum()));
+        field(json, "error_rate", String.format("%.6f", completed == 0 ? 0.0 : (double) errors.sum() / completed));
+        field(json, "throughput_rps", String.format("%.2f", completed / elapsedSeconds));
+
+        StringBuilder byOutcome = new StringBuilder("{");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(outcomes).entrySet())
+            field(byOutcome, entry.getKey(), String.valueOf(entry.getValue().sum()));
+        field(json, "outcomes", byOutcome.append('}').toString());
+
+        StringBuilder latencyMs = new StringBuilder("{");
+        field(latencyMs, "mean", millis(latency.mean()));
+        for (double p : new double[]{50, 90, 95, 99, 99.9})
+            field(latencyMs, "p" + (p == (long) p ? String.valueOf((long) p) : String.valueOf(p)), millis(latency.percentile(p)));
+        field(latencyMs, "max", millis(latency.max()));
+        field(json, "latency_ms", latencyMs.append('}').toString());
+
+        StringBuilder buckets = new StringBuilder("[");
+        latency.forEachBucket((upperNanos, count) -> {
+            if (buckets.length() > 1) buckets.append(',');
+            buckets.append('[').append(millis(upperNanos)).append(',').append(count).append(']');
+        });
+        field(json, "latency_histogram_ms", buckets.append(']').toString());
+        return json.append('}').toString();
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        if (json.length() > 1) json.append(',');
+        json.append('"').append(name).append("\":").append(value);
+    }
+
+    private static String millis(double nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
+    /**
+     * Lock-free log-linear latency histogram: 32 sub-buckets per power of two,
+     * so every recorded value is within about 3% of its bucket bound.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            counts.incrementAndGet(index(value));
+            total.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            // Shift so the top SUB_BITS + 1 bits remain; values in [32, 64) pick the sub-bucket
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+        }
+
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int shift = index / SUB_BUCKETS - 1;
+            long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+            return ((sub + 1) << shift) - 1;
+        }
+
+        double mean() {
+            long n = total.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given percentile.
+         */
+        long percentile(double percentile) {
+            long n = total.sum();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(percentile / 100.0 * n);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max.get());
+            }
+            return max.get();
+        }
+
+        interface BucketVisitor {
+            void visit(long upperNanos, long count);
+        }
+
+        void forEachBucket(BucketVisitor visitor) {
+            for (int i = 0; i < counts.length(); i++) {
+                long count = counts.get(i);
+                if (count > 0) visitor.visit(upperBound(i), count);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTest test = parse(args);
+        StubSolveServer stub = null;
+        if (test.url == null) {
+            stub = new StubSolveServer(0, test.stubLatencyMillis, test.stubJitterMillis, test.stubErrorRate, test.seed);
+            stub.start();
+            test.url = "http://localhost:" + stub.getPort();
+        }
+        try {
+            System.out.println(test.run());
+        } finally {
+            if (stub != null) stub.stop();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+import java.util.Arrays;
+
+/**
+ * Table-driven move engine working on flat facelet arrays.
+ *
+ * A state is a byte[54] holding one colour (0-5) per facelet, in the same
+ * U, R, F, D, L, B face order and row-major layout as {@link Cube#getStateString()}.
+ * Moves are encoded as small integers: {@code face * 3 + (quarterTurns - 1)},
+ * so 0 = U, 1 = U2, 2 = U', 3 = R, ... 17 = B'.
+ */
+public final class MoveEngine {
+    public static final int N_FACELETS = 54;
+    public static final int N_MOVES = 18;
+
+    /** Facelets touched by one face turn (8 on the face, 12 on the side strips). */
+    public static final int TOUCHED = 20;
+
+    private static final String FACE_NAMES = "URFDLB";
+    private static final String[] SUFFIX = {"", "2", "'"};
+
+    // For move m, position DST[m][k] receives the sticker found at SRC[m][k]
+    private static final byte[][] SRC = new byte[N_MOVES][TOUCHED];
+    private static final byte[][] DST = new byte[N_MOVES][TOUCHED];
+
+    static {
+        buildTables();
+    }
+
+    private MoveEngine() {
+    }
+
+    /**
+     * Traces every move on a Cube whose facelets are labelled 0-53, so the
+     * tables always agree with {@link Cube#move(String)}.
+     */
+    private static void buildTables() {
+        int[][][] labelled = new int[6][3][3];
+        for (int p = 0; p < N_FACELETS; p++)
+            labelled[p / 9][(p % 9) / 3][p % 3] = p;
+
+        for (int m = 0; m < N_MOVES; m++) {
+            Cube probe = new Cube();
+            probe.setFaces(labelled);
+            probe.move(toNotation(m));
+            int[][][] moved = probe.getFaces();
+
+            int k = 0;
+            for (int p = 0; p < N_FACELETS; p++) {
+                int from = moved[p / 9][(p % 9) / 3][p % 3];
+                if (from != p) {
+                    SRC[m][k] = (byte) from;
+                    DST[m][k] = (byte) p;
+                    k++;
+                }
+            }
+            if (k != TOUCHED) {
+                throw new IllegalStateException("Move " + toNotation(m) + " touched " + k + " facelets");
+            }
+        }
+    }
+
+    /**
+     * Returns the face (0-5, Cube order U R F D L B) a move turns.
+     */
+    public static int face(int move) {
+        return move / 3;
+    }
+
+    /**
+     * Returns the number of clockwise quarter turns (1-3) of a move.
+     */
+    public static int power(int move) {
+        return move % 3 + 1;
+    }
+
+    /**
+     * Returns the axis (0 = U/D, 1 = R/L, 2 = F/B) a move turns about.
+     */
+    public static int axis(int move) {
+        return move / 3 % 3;
+    }
+
+    /**
+     * Returns the move that undoes the given move.
+     */
+    public static int inverse(int move) {
+        return move - move % 3 + (2 - move % 3);
+    }
+
+    /**
+     * Applies one move to a state in place.
+     * @param scratch buffer of at least {@link #TOUCHED} bytes
+     */
+    public static void apply(byte[] state, int move, byte[] scratch) {
+        byte[] src = SRC[move];
+        byte[] dst = DST[move];
+        for (int k = 0; k < TOUCHED; k++)
+            scratch[k] = state[src[k]];
+        for (int k = 0; k < TOUCHED; k++)
+            state[dst[k]] = scratch[k];
+    }
+
+    /**
+     * Applies moves[from, to) to a state in place.
+     */
+    public static void apply(byte[] state, int[] moves, int from, int to, byte[] scratch) {
+        for (int i = from; i < to; i++)
+            apply(state, moves[i], scratch);
+    }
+
+    /**
+     * Checks if every face of the state shows a single colour.
+     */
+    public static boolean isSolved(byte[] state) {
+        for (int base = 0; base < N_FACELETS; base += 9) {
+            byte color = state[base];
+            for (int p = base + 1; p < base + 9; p++)
+                if (state[p] != color) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the solved state.
+     */
+    public static byte[] solved() {
+        byte[] state = new byte[N_FACELETS];
+        for (int p = 0; p < N_FACELETS; p++)
+            state[p] = (byte) (p / 9);
+        return state;
+    }
+
+    /**
+     * Converts a 54-character facelet string (as produced by
+     * {@link Cube#getStateString()}) to a state array.
+     */
+    public static byte[] parseState(String facelets) {
+        byte[] state = new byte[N_FACELETS];
+        FaceletCodec.decode(facelets, state);
+        return state;
+    }
+
+    /**
+     * Parses a move in face-turn notation ("R", "R2", "R'").
+     * @return the move code, or -1 if the token is not a move
+     */
+    public static int parseMove(String token) {
+        if (token.isEmpty() || token.length() > 3) return -1;
+        int face = FACE_NAMES.indexOf(token.charAt(0));
+        if (face < 0) return -1;
+        String suffix = token.substring(1);
+        switch (suffix) {
+            case "": return face * 3;
+            case "2": case "2'": return face * 3 + 1;
+            case "'": return face * 3 + 2;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Parses a whitespace- or comma-separated move sequence.
+     * @throws IllegalArgumentException if any token is not a move
+     */
+    public static int[] parseMoves(String sequence) {
+        String trimmed = sequence.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        if (trimmed.isEmpty()) return new int[0];
+
+        String[] tokens = trimmed.split("[\\s,]+");
+        int[] moves = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            moves[i] = parseMove(tokens[i]);
+            if (moves[i] < 0) {
+                throw new IllegalArgumentException("Invalid move: " + tokens[i]);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the notation of a single move, e.g. "F'".
+     */
+    public static String toNotation(int move) {
+        return FACE_NAMES.charAt(face(move)) + SUFFIX[move % 3];
+    }
+
+    /**
+     * Formats moves[0, length) as a space-separated sequence.
+     */
+    public static String toNotation(int[] moves, int length) {
+        StringBuilder sb = new StringBuilder(length * 3);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(FACE_NAMES.charAt(face(moves[i]))).append(SUFFIX[moves[i] % 3]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats a whole move sequence.
+     */
+    public static String toNotation(int[] moves) {
+        return toNotation(moves, moves.length);
+    }
+
+    /**
+     * Cancels redundant turns: consecutive turns of the same face are merged
+     * (dropped when they add up to a full turn), also across a turn of the
+     * opposite face since those commute ("U D U'" becomes "D").
+     *
+     * @param out buffer of at least {@code length} entries, may be {@code moves}
+     * @return the length of the simplified sequence written to {@code out}
+     */
+    public static int simplify(int[] moves, int length, int[] out) {
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            int face = face(moves[i]);
+            int turns = power(moves[i]);
+
+            // Out is always fully reduced, so only the last two entries can merge
+            int target = -1;
+            if (n > 0 && face(out[n - 1]) == face) {
+                target = n - 1;
+            } else if (n > 1 && axis(out[n - 1]) == face % 3 && face(out[n - 2]) == face) {
+                target = n - 2;
+            }
+
+            if (target < 0) {
+                out[n++] = moves[i];
+                continue;
+            }
+            turns = (turns + power(out[target])) % 4;
+            if (turns != 0) {
+                out[target] = face * 3 + turns - 1;
+            } else {
+                if (target == n - 2) out[n - 2] = out[n - 1];
+                n--;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns a simplified copy of a move sequence.
+     */
+    public static int[] simplify(int[] moves) {
+        int[] out = new int[moves.length];
+        return Arrays.copyOf(out, simplify(moves, moves.length, out));
+    }
+}
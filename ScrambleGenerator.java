@@ -0,0 +1,199 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Reproducible scramble generator.
+ *
+ * Random-move scrambles never turn the same face twice in a row and never
+ * turn three faces of one axis in a row ("R L R"), so no move is wasted.
+ * Random-state scrambles pick a uniformly random solvable cube and return
+ * the inverse of a {@link TwoPhaseSolver} solution for it, which is how
+ * competition scrambles are made.
+ *
+ * A generator is not thread-safe; use one per thread, either from
+ * {@link #current()} or by seeding one per task.
+ */
+public final class ScrambleGenerator {
+    public static final int DEFAULT_LENGTH = 25;
+
+    // Scrambles generated per parallel task by the bulk writer; random-state
+    // scrambles each need a solve, so they are handed out in much smaller chunks
+    private static final int CHUNK = 1 << 14;
+    private static final int RANDOM_STATE_CHUNK = 64;
+
+    private static final SplittableRandom ROOT = new SplittableRandom();
+    private static final ThreadLocal<ScrambleGenerator> PER_THREAD =
+            ThreadLocal.withInitial(() -> new ScrambleGenerator(splitRoot()));
+
+    private final SplittableRandom random;
+
+    /**
+     * Creates a generator whose output depends only on the seed.
+     */
+    public ScrambleGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private ScrambleGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    private static synchronized SplittableRandom splitRoot() {
+        return ROOT.split();
+    }
+
+    /**
+     * Returns the calling thread's generator, seeded independently of other threads.
+     */
+    public static ScrambleGenerator current() {
+        return PER_THREAD.get();
+    }
+
+    /**
+     * Writes a random-move scramble of the given length into dst[off, off + length).
+     */
+    public void randomMoves(int[] dst, int off, int length) {
+        int lastFace = -1;
+        for (int i = 0; i < length; i++) {
+            int move;
+            do {
+                move = random.nextInt(MoveEngine.N_MOVES);
+            } while (redundant(lastFace, MoveEngine.face(move)));
+            dst[off + i] = move;
+            lastFace = MoveEngine.face(move);
+        }
+    }
+
+    /**
+     * Returns a random-move scramble of the given length.
+     */
+    public int[] randomMoves(int length) {
+        int[] moves = new int[length];
+        randomMoves(moves, 0, length);
+        return moves;
+    }
+
+    private static boolean redundant(int lastFace, int face) {
+        // Same face again, or opposite faces out of order (which also rules out "R L R")
+        return lastFace >= 0 && lastFace % 3 == face % 3 && face <= lastFace;
+    }
+
+    /**
+     * Returns a uniformly random solvable cube.
+     */
+    public CubieCube randomState() {
+        return CubieCube.random(random);
+    }
+
+    /**
+     * Returns a move sequence that takes a solved cube to a uniformly random state.
+     * The drawn state is always the one returned, however long it takes to
+     * solve, so the result depends only on the generator's seed.
+     * @throws IllegalStateException if the thread is interrupted during the solve
+     */
+    public int[] randomStateMoves() {
+        int[] solution = TwoPhaseSolver.solve(randomState(), TwoPhaseSolver.DEFAULT_MAX_LENGTH,
+                TwoPhaseSolver.NO_TIMEOUT);
+        if (solution == null) throw new IllegalStateException("Interrupted while solving a random state");
+
+        int[] scramble = new int[solution.length];
+        for (int i = 0; i < solution.length; i++)
+            scramble[i] = MoveEngine.inverse(solution[solution.length - 1 - i]);
+        return scramble;
+    }
+
+    /**
+     * Writes scrambles in compact move-code form: each record is one byte
+     * holding the move count followed by one byte per move (codes as in
+     * {@link MoveEngine}). Work is split into chunks that are generated in
+     * parallel, each with its own generator split off one seeded root in
+     * chunk order, and written in order, so the output depends only on the arguments.
+     *
+     * @param length moves per random-move scramble; ignored when randomState is set
+     */
+    public static void writeBulk(OutputStream out, long count, int length, long seed, boolean randomState)
+            throws IOException {
+        if (length > 255) throw new IllegalArgumentException("Scrambles longer than 255 moves do not fit a record");
+        int chunkSize = randomState ? RANDOM_STATE_CHUNK : CHUNK;
+        int chunks = (int) ((count + chunkSize - 1) / chunkSize);
+        // Split sequentially so chunk k always gets the same, independent stream
+        SplittableRandom root = new SplittableRandom(seed);
+        ScrambleGenerator[] generators = new ScrambleGenerator[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++)
+            generators[chunk] = new ScrambleGenerator(root.split());
+        try {
+            IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        int n = (int) Math.min(chunkSize, count - (long) chunk * chunkSize);
+                        return encodeChunk(generators[chunk], n, length, randomState);
+                    })
+                    .forEachOrdered(bytes -> {
+                        try {
+                            out.write(bytes);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static byte[] encodeChunk(ScrambleGenerator generator, int n, int length, boolean randomState) {
+        byte[] bytes = new byte[randomState ? n * (TwoPhaseSolver.DEFAULT_MAX_LENGTH + 1) : n * (length + 1)];
+        int[] moves = new int[length];
+        int pos = 0;
+        for (int i = 0; i < n; i++) {
+            int size = length;
+            if (randomState) {
+                moves = generator.randomStateMoves();
+                size = moves.length;
+            } else {
+                generator.randomMoves(moves, 0, length);
+            }
+            bytes[pos++] = (byte) size;
+            for (int k = 0; k < size; k++)
+                bytes[pos++] = (byte) moves[k];
+        }
+        return pos == bytes.length ? bytes : Arrays.copyOf(bytes, pos);
+    }
+
+    /**
+     * Usage: java ScrambleGenerator <out-file> <count> [--length 25] [--seed N] [--random-state]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java ScrambleGenerator <out-file> <count> [--length 25] [--seed N] [--random-state]");
+            System.exit(2);
+        }
+        Path output = Paths.get(args[0]);
+        long count = Long.parseLong(args[1]);
+        int length = DEFAULT_LENGTH;
+        long seed = System.nanoTime();
+        boolean randomState = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--length": length = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--random-state": randomState = true; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+            writeBulk(out, count, length, seed, randomState);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Wrote %d scrambles (seed %d) to %s in %.2f s%n", count, seed, output, seconds);
+    }
+}
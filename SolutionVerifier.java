@@ -0,0 +1,288 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Checks that solutions returned by a solver really solve the given state,
+ * and shortens them by cancelling redundant turns.
+ */
+public final class SolutionVerifier {
+    /** Upper bound on the move counts tracked by the batch histogram. */
+    public static final int MAX_TRACKED_LENGTH = 64;
+
+    /** Lines read and verified together by {@link #verifyLines}. */
+    public static final int LINE_BLOCK = 1 << 16;
+
+    /** Number of failing indices a batch report keeps as examples. */
+    public static final int MAX_REPORTED_FAILURES = 100;
+
+    private SolutionVerifier() {
+    }
+
+    /**
+     * Outcome of verifying a single solution.
+     */
+    public static final class Result {
+        private final boolean solved;
+        private final int[] moves;
+        private final int[] simplified;
+        private final String error;
+
+        private Result(boolean solved, int[] moves, int[] simplified, String error) {
+            this.solved = solved;
+            this.moves = moves;
+            this.simplified = simplified;
+            this.error = error;
+        }
+
+        /** Whether applying the solution leaves the cube solved. */
+        public boolean isSolved() {
+            return solved;
+        }
+
+        /** The parsed solution, or an empty array if it could not be parsed. */
+        public int[] getMoves() {
+            return moves;
+        }
+
+        /** The solution with redundant turns cancelled. */
+        public int[] getSimplified() {
+            return simplified;
+        }
+
+        /** The simplified solution in face-turn notation. */
+        public String getSimplifiedNotation() {
+            return MoveEngine.toNotation(simplified);
+        }
+
+        /** Why verification failed, or null if it succeeded. */
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Verifies a solver response against a 54-character facelet state.
+     */
+    public static Result verify(String state, String solution) {
+        byte[] facelets;
+        int[] moves;
+        try {
+            facelets = MoveEngine.parseState(state);
+        } catch (IllegalArgumentException ex) {
+            return new Result(false, new int[0], new int[0], "Invalid state: " + ex.getMessage());
+        }
+        try {
+            moves = MoveEngine.parseMoves(solution);
+        } catch (IllegalArgumentException ex) {
+            return new Result(false, new int[0], new int[0], "Unparseable solution: " + ex.getMessage());
+        }
+
+        MoveEngine.apply(facelets, moves, 0, moves.length, new byte[MoveEngine.TOUCHED]);
+        int[] simplified = MoveEngine.simplify(moves);
+        if (!MoveEngine.isSolved(facelets)) {
+            return new Result(false, moves, simplified, "Solution does not solve the cube");
+        }
+        return new Result(true, moves, simplified, null);
+    }
+
+    /**
+     * Verifies one pair without allocating. The state is left untouched.
+     *
+     * @param work    buffer of {@link MoveEngine#N_FACELETS} bytes used as the scratch copy
+     * @param scratch buffer of {@link MoveEngine#TOUCHED} bytes
+     */
+    public static boolean verify(byte[] state, int[] moves, byte[] work, byte[] scratch) {
+        System.arraycopy(state, 0, work, 0, MoveEngine.N_FACELETS);
+        MoveEngine.apply(work, moves, 0, moves.length, scratch);
+        return MoveEngine.isSolved(work);
+    }
+
+    /**
+     * Verifies many (state, solution) pairs in parallel.
+     * solutions[i] is checked against states[i].
+     */
+    public static BatchReport verifyBatch(byte[][] states, int[][] solutions) {
+        if (states.length != solutions.length) {
+            throw new IllegalArgumentException("Got " + states.length + " states but " + solutions.length + " solutions");
+        }
+        return IntStream.range(0, states.length)
+                .parallel()
+                .collect(BatchReport::new,
+                        (report, i) -> report.add(i, states[i], solutions[i]),
+                        BatchReport::merge);
+    }
+
+    /**
+     * Verifies lines of the form {@code <54-char state> <solution moves...>}.
+     * Lines are read in blocks of {@link #LINE_BLOCK} and each block is
+     * verified in parallel, so memory use does not grow with the input.
+     * Line numbers in the report are zero-based positions in the stream.
+     */
+    public static BatchReport verifyLines(Stream<String> lines) {
+        BatchReport total = new BatchReport();
+        String[] block = new String[LINE_BLOCK];
+        Iterator<String> it = lines.iterator();
+        int offset = 0;
+        while (it.hasNext()) {
+            int n = 0;
+            while (n < block.length && it.hasNext()) block[n++] = it.next();
+
+            int base = offset;
+            total.merge(IntStream.range(0, n)
+                    .parallel()
+                    .collect(BatchReport::new,
+                            (report, i) -> report.addLine(base + i, block[i]),
+                            BatchReport::merge));
+            offset += n;
+        }
+        return total;
+    }
+
+    /**
+     * Aggregated results of a batch run. Each parallel worker fills its own
+     * report, which are then merged, so no locking is needed.
+     */
+    public static final class BatchReport {
+        private final byte[] work = new byte[MoveEngine.N_FACELETS];
+        private final byte[] scratch = new byte[MoveEngine.TOUCHED];
+        private int[] buffer = new int[32];
+
+        private long checked;
+        private long failed;
+        private int[] failures = new int[MAX_REPORTED_FAILURES];
+        private int reportedFailures;
+        private final IntSummaryStatistics rawLength = new IntSummaryStatistics();
+        private final IntSummaryStatistics simplifiedLength = new IntSummaryStatistics();
+        private final long[] histogram = new long[MAX_TRACKED_LENGTH + 1];
+
+        BatchReport() {
+        }
+
+        void add(int index, byte[] state, int[] moves) {
+            checked++;
+            if (!verify(state, moves, work, scratch)) {
+                recordFailure(index);
+                return;
+            }
+            if (buffer.length < moves.length) buffer = new int[moves.length];
+            int length = MoveEngine.simplify(moves, moves.length, buffer);
+            rawLength.accept(moves.length);
+            simplifiedLength.accept(length);
+            histogram[Math.min(length, MAX_TRACKED_LENGTH)]++;
+        }
+
+        void addLine(int index, String line) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) return;
+            int split = trimmed.indexOf(' ');
+            String state = split < 0 ? trimmed : trimmed.substring(0, split);
+            String solution = split < 0 ? "" : trimmed.substring(split + 1);
+            try {
+                add(index, MoveEngine.parseState(state), MoveEngine.parseMoves(solution));
+            } catch (IllegalArgumentException ex) {
+                checked++;
+                recordFailure(index);
+            }
+        }
+
+        private void recordFailure(int index) {
+            failed++;
+            if (reportedFailures < failures.length) failures[reportedFailures++] = index;
+        }
+
+        void merge(BatchReport other) {
+            checked += other.checked;
+            failed += other.failed;
+            for (int i = 0; i < other.reportedFailures && reportedFailures < failures.length; i++)
+                failures[reportedFailures++] = other.failures[i];
+            rawLength.combine(other.rawLength);
+            simplifiedLength.combine(other.simplifiedLength);
+            for (int i = 0; i < histogram.length; i++)
+                histogram[i] += other.histogram[i];
+        }
+
+        /** Number of pairs checked. */
+        public long getChecked() {
+            return checked;
+        }
+
+        /** Number of pairs whose solution did not solve the state. */
+        public long getFailed() {
+            return failed;
+        }
+
+        /** Indices of up to {@link #MAX_REPORTED_FAILURES} failing pairs, sorted. */
+        public int[] getFailureExamples() {
+            int[] sorted = Arrays.copyOf(failures, reportedFailures);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        /** Move counts of the verified solutions as returned. */
+        public IntSummaryStatistics getRawLength() {
+            return rawLength;
+        }
+
+        /** Move counts of the verified solutions after simplification. */
+        public IntSummaryStatistics getSimplifiedLength() {
+            return simplifiedLength;
+        }
+
+        /**
+         * Number of verified solutions per simplified length; the last bucket
+         * also counts anything longer than {@link #MAX_TRACKED_LENGTH}.
+         */
+        public long[] getLengthHistogram() {
+            return histogram.clone();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("checked=").append(checked)
+              .append(" failed=").append(failed);
+            // min and max are sentinels until at least one pair has verified
+            if (rawLength.getCount() > 0) {
+                sb.append(" raw[min=").append(rawLength.getMin())
+                  .append(" avg=").append(String.format("%.2f", rawLength.getAverage()))
+                  .append(" max=").append(rawLength.getMax())
+                  .append("] simplified[min=").append(simplifiedLength.getMin())
+                  .append(" avg=").append(String.format("%.2f", simplifiedLength.getAverage()))
+                  .append(" max=").append(simplifiedLength.getMax())
+                  .append(']');
+            }
+            if (reportedFailures > 0) {
+                sb.append(" failures=").append(Arrays.toString(getFailureExamples()));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Verifies a file of {@code <state> <solution>} lines and prints the report.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java SolutionVerifier <pairs-file>");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        BatchReport report;
+        try (Stream<String> lines = Files.lines(input)) {
+            report = verifyLines(lines);
+        }
+        System.out.println(report);
+        long[] histogram = report.getLengthHistogram();
+        for (int length = 0; length < histogram.length; length++) {
+            if (histogram[length] > 0) System.out.println(length + "\t" + histogram[length]);
+        }
+        if (report.getFailed() > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,315 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless HTTP server exposing the same {@code GET /solve/<54-char state>}
+ * endpoint as the hosted solver used by {@link CubeVisualizer}, backed by
+ * the in-process {@link TwoPhaseSolver}.
+ *
+ * Requests are handled on a thread per request (virtual threads when the JVM
+ * has them). Solving runs on a fixed pool with a bounded queue; when the queue
+ * is full the server answers 503 instead of letting latency grow. The time
+ * limit counts from when a solve is queued, so a request that cannot be
+ * answered in time gets a 504 whether it waited in the queue or in the
+ * search. Solutions
+ * are cached, and concurrent requests for the same state share one solve.
+ * Both are keyed by the state's {@link CubeSymmetry} class, so rotated or
+ * mirrored copies of a solved state are answered from the cache too.
+ *
+ * Usage: java SolveServer [--port 8080] [--solver-threads N] [--queue 1024]
+ *                         [--cache 100000] [--max-length 22] [--timeout-ms 5000]
+ */
+public final class SolveServer {
+    private static final String SOLVE_PREFIX = "/solve/";
+
+    // How long past the time limit a request waits for the solver pool to hand back its
+    // result; the search itself stops within a millisecond of its deadline
+    private static final long RESULT_GRACE_MILLIS = 250;
+
+    /**
+     * Server settings, all with usable defaults.
+     */
+    public static final class Options {
+        public int port = 8080;
+        public int solverThreads = Runtime.getRuntime().availableProcessors();
+        public int queueCapacity = 1024;
+        public int cacheSize = 100_000;
+        public int maxLength = TwoPhaseSolver.DEFAULT_MAX_LENGTH;
+        public long timeoutMillis = TwoPhaseSolver.DEFAULT_TIMEOUT_MILLIS;
+
+        /**
+         * Parses "--name value" pairs, keeping defaults for anything not given.
+         */
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + name);
+                String value = args[++i];
+                switch (name) {
+                    case "--port": options.port = Integer.parseInt(value); break;
+                    case "--solver-threads": options.solverThreads = Integer.parseInt(value); break;
+                    case "--queue": options.queueCapacity = Integer.parseInt(value); break;
+                    case "--cache": options.cacheSize = Integer.parseInt(value); break;
+                    case "--max-length": options.maxLength = Integer.parseInt(value); break;
+                    case "--timeout-ms": options.timeoutMillis = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + name);
+                }
+            }
+            return options;
+        }
+    }
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ThreadPoolExecutor solverPool;
+    private final SolutionCache cache;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder solveNanos = new LongAdder();
+
+    public SolveServer(Options options) throws IOException {
+        this.options = options;
+        this.cache = new SolutionCache(options.cacheSize);
+        this.solverPool = new ThreadPoolExecutor(options.solverThreads, options.solverThreads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(options.queueCapacity),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.requestExecutor = VirtualThreads.newPerTaskExecutor();
+
+        server = HttpServer.create(new InetSocketAddress(options.port), 1024);
+        server.setExecutor(requestExecutor);
+        server.createContext(SOLVE_PREFIX, this::handleSolve);
+        server.createContext("/health", exchange -> respond(exchange, 200, "OK"));
+        server.createContext("/metrics", exchange -> respond(exchange, 200, metrics()));
+    }
+
+    /**
+     * Builds the solver tables and starts accepting requests.
+     */
+    public void start() {
+        TwoPhaseSolver.init();
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and shuts down the worker pools.
+     */
+    public void stop() {
+        server.stop(1);
+        solverPool.shutdownNow();
+        requestExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long arrived = System.nanoTime();
+        requests.increment();
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "Error: only GET is supported");
+            return;
+        }
+        String state = exchange.getRequestURI().getPath().substring(SOLVE_PREFIX.length());
+
+        String error = validate(state);
+        if (error != null) {
+            invalid.increment();
+            respond(exchange, 400, "Error: " + error);
+            return;
+        }
+
+        // Solve the class representative and map its solution back to this state
+        byte[] canonical = new byte[MoveEngine.N_FACELETS];
+        int sym = CubeSymmetry.canonicalize(MoveEngine.parseState(state), canonical);
+        String key = FaceletCodec.encode(canonical);
+
+        String cached = cache.get(key);
+        if (cached != null) {
+            cacheHits.increment();
+            respond(exchange, 200, fromCanonical(cached, sym));
+            return;
+        }
+
+        CompletableFuture<String> pending;
+        try {
+            pending = inFlight.computeIfAbsent(key, this::submit);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, "Error: solver busy, try again later");
+            return;
+        }
+
+        try {
+            // The shared solve was queued at most a moment after this request arrived and gives up timeoutMillis later
+            long waitNanos = TimeUnit.MILLISECONDS.toNanos(options.timeoutMillis + RESULT_GRACE_MILLIS)
+                    - (System.nanoTime() - arrived);
+            String solution = pending.get(waitNanos, TimeUnit.NANOSECONDS);
+            respond(exchange, 200, fromCanonical(solution, sym));
+        } catch (TimeoutException ex) {
+            failed.increment();
+            respond(exchange, 504, "Error: no solution within time limit");
+        } catch (ExecutionException ex) {
+            failed.increment();
+            if (ex.getCause() instanceof SolveTimeoutException) {
+                respond(exchange, 504, "Error: " + ex.getCause().getMessage());
+            } else {
+                respond(exchange, 500, "Error: " + ex.getCause().getMessage());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "Error: server shutting down");
+        }
+    }
+
+    /**
+     * Checks that a state is a well-formed, solvable cube.
+     * @return a description of the problem, or null if the state is valid
+     */
+    static String validate(String state) {
+        if (state.length() != MoveEngine.N_FACELETS) {
+            return "State must be exactly 54 facelets, got " + state.length();
+        }
+        try {
+            CubieCube.fromFacelets(MoveEngine.parseState(state));
+            return null;
+        } catch (IllegalArgumentException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    /**
+     * Turns a solution of the canonical state into one of the state that was
+     * conjugated by sym to get it.
+     */
+    private static String fromCanonical(String solution, int sym) {
+        if (sym == 0) return solution;
+        int[] moves = MoveEngine.parseMoves(solution);
+        CubeSymmetry.conjugateMoves(CubeSymmetry.inverse(sym), moves, moves.length, moves);
+        return MoveEngine.toNotation(moves);
+    }
+
+    private CompletableFuture<String> submit(String state) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long queued = System.nanoTime();
+        solverPool.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                long remainingMillis = options.timeoutMillis - TimeUnit.NANOSECONDS.toMillis(start - queued);
+                String solution = remainingMillis <= 0 ? null
+                        : TwoPhaseSolver.solve(state, options.maxLength, remainingMillis);
+                solveNanos.add(System.nanoTime() - start);
+                if (solution == null) {
+                    result.completeExceptionally(new SolveTimeoutException());
+                } else {
+                    solved.increment();
+                    cache.put(state, solution);
+                    result.complete(solution);
+                }
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                inFlight.remove(state, result);
+            }
+        });
+        return result;
+    }
+
+    private String metrics() {
+        long solves = solved.sum();
+        return "requests_total " + requests.sum() + "\n"
+                + "cache_hits_total " + cacheHits.sum() + "\n"
+                + "solved_total " + solves + "\n"
+                + "invalid_total " + invalid.sum() + "\n"
+                + "rejected_total " + rejected.sum() + "\n"
+                + "failed_total " + failed.sum() + "\n"
+                + "cache_size " + cache.size() + "\n"
+                + "solver_queue_depth " + solverPool.getQueue().size() + "\n"
+                + "solver_active " + solverPool.getActiveCount() + "\n"
+                + "solve_seconds_avg " + (solves == 0 ? 0.0 : solveNanos.sum() / 1e9 / solves) + "\n";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * The solver used up the time limit, counted from when the solve was queued.
+     */
+    private static final class SolveTimeoutException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        SolveTimeoutException() {
+            super("no solution within time limit");
+        }
+    }
+
+    /**
+     * Least-recently-used map from state to solution.
+     */
+    private static final class SolutionCache {
+        private final Map<String, String> entries;
+
+        SolutionCache(int capacity) {
+            entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized String get(String state) {
+            return entries.get(state);
+        }
+
+        synchronized void put(String state, String solution) {
+            entries.put(state, solution);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        SolveServer solveServer = new SolveServer(Options.parse(args));
+        solveServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(solveServer::stop));
+        System.out.println("Solve server listening on port " + solveServer.getPort()
+                + (VirtualThreads.isAvailable() ? " (virtual threads)" : " (platform threads)"));
+    }
+}
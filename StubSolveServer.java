@@ -0,0 +1,133 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the hosted solve API, for load testing without touching
+ * cuby-solve-api. Answers {@code GET /solve/<state>} with a fixed move
+ * sequence after a configurable delay, and fails a configurable share of
+ * requests with a 500.
+ *
+ * Delay and failure are drawn per request from the seed and a sequence
+ * number: the {@code X-Request-Seq} header when the client sends one (as
+ * {@link LoadTest} does), otherwise a counter of requests received. So the
+ * configured error rate and jitter hold even for a single repeated state,
+ * and replaying the same sequence numbers gives the same behaviour.
+ *
+ * Usage: java StubSolveServer [--port 8081] [--latency-ms 50] [--jitter-ms 20]
+ *                             [--error-rate 0.01] [--seed 1]
+ */
+public final class StubSolveServer {
+    private static final String SOLVE_PREFIX = "/solve/";
+    private static final String CANNED_SOLUTION = "R U R' U' R' F R2 U' R' U' R U R' F'";
+    static final String SEQUENCE_HEADER = "X-Request-Seq";
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+    private final long seed;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong received = new AtomicLong();
+
+    public StubSolveServer(int port, long latencyMillis, long jitterMillis, double errorRate, long seed)
+            throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+        this.seed = seed;
+        this.executor = VirtualThreads.newPerTaskExecutor();
+
+        server = HttpServer.create(new InetSocketAddress(port), 4096);
+        server.setExecutor(executor);
+        server.createContext(SOLVE_PREFIX, this::handleSolve);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the port the server is bound to (useful when created with port 0).
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long hash = mix(mix(seed) + sequence(exchange));
+
+        long delay = latencyMillis + (jitterMillis > 0 ? Math.floorMod(hash, jitterMillis + 1) : 0);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Upper 53 bits of a second mix give a uniform value in [0, 1)
+        double draw = (mix(hash) >>> 11) * 0x1.0p-53;
+        if (draw < errorRate) {
+            respond(exchange, 500, "Error: injected failure");
+        } else {
+            respond(exchange, 200, CANNED_SOLUTION);
+        }
+    }
+
+    private long sequence(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst(SEQUENCE_HEADER);
+        if (header != null) {
+            try {
+                return Long.parseLong(header);
+            } catch (NumberFormatException ex) {
+                // fall back to arrival order
+            }
+        }
+        return received.getAndIncrement();
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8081;
+        long latency = 50, jitter = 20, seed = 1;
+        double errorRate = 0.01;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--latency-ms": latency = Long.parseLong(args[++i]); break;
+                case "--jitter-ms": jitter = Long.parseLong(args[++i]); break;
+                case "--error-rate": errorRate = Double.parseDouble(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        StubSolveServer stub = new StubSolveServer(port, latency, jitter, errorRate, seed);
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        System.out.println("Stub solve server listening on port " + stub.getPort());
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.Arrays;
+
+/**
+ * Symmetry-reduced index over a raw coordinate: raw values that are
+ * conjugates of one another under a group of {@link CubeSymmetry} symmetries
+ * share a class, and each raw value is stored as (class, symmetry) with
+ * {@code raw = conjugate(representative(class), symmetry)}. Tables indexed by
+ * class are then up to 16 (or 48) times smaller than raw-indexed ones.
+ *
+ * {@link #flipSlice()} is the phase-1 edge coordinate of the two-phase solver
+ * (flip and UD-slice position, 1013760 values) reduced by the 16 symmetries
+ * that keep the U-D axis, which leaves 64430 classes.
+ */
+public final class SymCoordinate {
+    /**
+     * Conjugation of raw coordinate values; must be a group action, i.e.
+     * conjugating by b and then a is the same as by {@link CubeSymmetry#multiply}(a, b).
+     */
+    public interface Conjugation {
+        int apply(int raw, int sym);
+    }
+
+    public static final int N_FLIP = 2048;
+    public static final int N_SLICE = 495;
+
+    private final int symCount;
+    private final int[] classOf;
+    private final byte[] symOf;
+    private final int[] representative;
+    private final long[] stabilizer;
+
+    private SymCoordinate(int symCount, int[] classOf, byte[] symOf, int[] representative, long[] stabilizer) {
+        this.symCount = symCount;
+        this.classOf = classOf;
+        this.symOf = symOf;
+        this.representative = representative;
+        this.stabilizer = stabilizer;
+    }
+
+    /**
+     * Splits raw values 0 to rawSize - 1 into classes under symmetries 0 to
+     * symCount - 1, which must form a group ({@link CubeSymmetry#N_SYM_UD} or
+     * {@link CubeSymmetry#N_SYM}). The representative of a class is its smallest raw value.
+     */
+    public static SymCoordinate build(int rawSize, int symCount, Conjugation conjugation) {
+        int[] classOf = new int[rawSize];
+        byte[] symOf = new byte[rawSize];
+        Arrays.fill(classOf, -1);
+
+        int classes = 0;
+        int[] representative = new int[rawSize / symCount * 2 + 16];
+        long[] stabilizer = new long[representative.length];
+        for (int raw = 0; raw < rawSize; raw++) {
+            if (classOf[raw] >= 0) continue;
+            if (classes == representative.length) {
+                representative = Arrays.copyOf(representative, classes * 2);
+                stabilizer = Arrays.copyOf(stabilizer, classes * 2);
+            }
+            for (int s = 0; s < symCount; s++) {
+                int image = conjugation.apply(raw, s);
+                if (image == raw) stabilizer[classes] |= 1L << s;
+                if (classOf[image] < 0) {
+                    classOf[image] = classes;
+                    symOf[image] = (byte) s;
+                }
+            }
+            representative[classes++] = raw;
+        }
+        return new SymCoordinate(symCount, classOf, symOf,
+                Arrays.copyOf(representative, classes), Arrays.copyOf(stabilizer, classes));
+    }
+
+    /**
+     * Returns the flip-slice coordinate ({@code slice * 2048 + flip}) reduced
+     * by the 16 U-D symmetries. Built on first use, which takes a moment.
+     */
+    public static SymCoordinate flipSlice() {
+        return FlipSlice.INSTANCE;
+    }
+
+    /**
+     * Returns the class of a raw value.
+     */
+    public int classIndex(int raw) {
+        return classOf[raw];
+    }
+
+    /**
+     * Returns the symmetry that takes the class representative to a raw value.
+     */
+    public int symmetry(int raw) {
+        return symOf[raw];
+    }
+
+    /**
+     * Returns {@code classIndex(raw) * symmetryCount() + symmetry(raw)}, the
+     * usual packed symmetry coordinate.
+     */
+    public int symCoordinate(int raw) {
+        return classOf[raw] * symCount + symOf[raw];
+    }
+
+    /**
+     * Returns the smallest raw value of a class.
+     */
+    public int representative(int classIndex) {
+        return representative[classIndex];
+    }
+
+    /**
+     * Returns a bit mask of the symmetries that leave a class representative unchanged.
+     */
+    public long stabilizer(int classIndex) {
+        return stabilizer[classIndex];
+    }
+
+    public int classCount() {
+        return representative.length;
+    }
+
+    public int rawSize() {
+        return classOf.length;
+    }
+
+    public int symmetryCount() {
+        return symCount;
+    }
+
+    /**
+     * Flip-slice conjugation, done by writing the edges of a cube with the
+     * given coordinate as facelets, conjugating those and reading the edges back.
+     */
+    private static final class FlipSlice implements Conjugation {
+        static final SymCoordinate INSTANCE =
+                build(N_SLICE * N_FLIP, CubeSymmetry.N_SYM_UD, new FlipSlice());
+
+        private final CubieCube cube = new CubieCube();
+        private final byte[] facelets = new byte[MoveEngine.N_FACELETS];
+        private final byte[] conjugated = new byte[MoveEngine.N_FACELETS];
+
+        @Override
+        public int apply(int raw, int sym) {
+            cube.setSlice(raw / N_FLIP);
+            cube.setFlip(raw % N_FLIP);
+            cube.toFacelets(facelets);
+            CubeSymmetry.conjugate(facelets, sym, conjugated);
+            return read(conjugated, cube);
+        }
+
+        /**
+         * Reads the flip-slice coordinate of a facelet state; only the edges
+         * are looked at, and only their slice membership and orientation.
+         */
+        static int read(byte[] facelets, CubieCube edges) {
+            for (int i = 0; i < CubieCube.N_EDGES; i++) {
+                int first = facelets[CubieCube.EDGE_FACELET[i][0]];
+                int second = facelets[CubieCube.EDGE_FACELET[i][1]];
+                boolean slice = !isUpDown(first) && !isUpDown(second);
+                edges.ep[i] = slice ? CubieCube.FR : 0;
+                // Oriented when the U/D sticker (F/B for slice edges) is the first one
+                edges.eo[i] = slice ? (isFrontBack(first) ? 0 : 1) : (isUpDown(first) ? 0 : 1);
+            }
+            return edges.getSlice() * N_FLIP + edges.getFlip();
+        }
+
+        private static boolean isUpDown(int color) {
+            return color == 0 || color == 3;
+        }
+
+        private static boolean isFrontBack(int color) {
+            return color == 2 || color == 5;
+        }
+    }
+}
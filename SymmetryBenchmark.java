@@ -0,0 +1,102 @@
+import java.util.SplittableRandom;
+
+/**
+ * Measures the per-state cost of the {@link CubeSymmetry} operations and the
+ * build and lookup cost of {@link SymCoordinate#flipSlice()}.
+ *
+ * States are uniformly random cubes from a seeded generator. Each operation
+ * runs a few unmeasured rounds first so the JIT has compiled it, then the
+ * best of the measured rounds is reported, in nanoseconds per state.
+ *
+ * Usage: java SymmetryBenchmark [--states 100000] [--rounds 5] [--seed 1]
+ */
+public final class SymmetryBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+
+    // Checksums end up here so the JIT cannot drop the measured work
+    private static volatile long sink;
+
+    private interface Operation {
+        /** Runs the operation on every state and returns a checksum, so the work cannot be skipped. */
+        long run(byte[][] states, byte[] dst);
+    }
+
+    private SymmetryBenchmark() {
+    }
+
+    private static double nanosPerState(byte[][] states, int rounds, Operation operation) {
+        byte[] dst = new byte[MoveEngine.N_FACELETS];
+        long checksum = 0;
+        for (int r = 0; r < WARMUP_ROUNDS; r++)
+            checksum += operation.run(states, dst);
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            checksum += operation.run(states, dst);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        sink += checksum;
+        return (double) best / states.length;
+    }
+
+    public static void main(String[] args) {
+        int count = 100_000, rounds = 5;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--states": count = Integer.parseInt(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[][] states = new byte[count][];
+        int[] flipSlice = new int[count];
+        for (int i = 0; i < count; i++) {
+            CubieCube cube = CubieCube.random(random);
+            states[i] = cube.toFacelets();
+            flipSlice[i] = cube.getSlice() * SymCoordinate.N_FLIP + cube.getFlip();
+        }
+
+        int symmetric = 0;
+        for (byte[] state : states)
+            if (CubeSymmetry.stabilizer(state) != 1) symmetric++;
+
+        System.out.printf("%d random states, %d with a non-trivial symmetry%n", count, symmetric);
+        System.out.printf("conjugate:    %8.1f ns/state%n", nanosPerState(states, rounds, (s, dst) -> {
+            long sum = 0;
+            for (int i = 0; i < s.length; i++) {
+                CubeSymmetry.conjugate(s[i], i % CubeSymmetry.N_SYM, dst);
+                sum += dst[0];
+            }
+            return sum;
+        }));
+        System.out.printf("canonicalize: %8.1f ns/state%n", nanosPerState(states, rounds, (s, dst) -> {
+            long sum = 0;
+            for (byte[] state : s)
+                sum += CubeSymmetry.canonicalize(state, dst);
+            return sum;
+        }));
+        System.out.printf("stabilizer:   %8.1f ns/state%n", nanosPerState(states, rounds, (s, dst) -> {
+            long sum = 0;
+            for (byte[] state : s)
+                sum += CubeSymmetry.stabilizer(state);
+            return sum;
+        }));
+
+        long start = System.nanoTime();
+        SymCoordinate coordinate = SymCoordinate.flipSlice();
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("flip-slice:   %d raw values in %d classes, built in %.0f ms%n",
+                coordinate.rawSize(), coordinate.classCount(), buildMillis);
+        System.out.printf("sym lookup:   %8.1f ns/state%n", nanosPerState(states, rounds, (s, dst) -> {
+            long sum = 0;
+            for (int raw : flipSlice)
+                sum += coordinate.symCoordinate(raw);
+            return sum;
+        }));
+    }
+}
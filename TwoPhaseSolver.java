@@ -0,0 +1,317 @@
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-process solver based on Kociemba's two-phase algorithm.
+ *
+ * Phase 1 brings the cube into the subgroup generated by U, D, R2, L2, F2, B2
+ * (all pieces oriented, slice edges in the slice); phase 2 solves it using
+ * only those moves. Both phases are iterative-deepening searches guided by
+ * pruning tables, which are built once on first use (about a second).
+ *
+ * Besides returning the first solution within a length limit, the solver can
+ * run as an anytime search: it reports a (long) solution almost at once and
+ * keeps going, reporting each shorter one it finds, until it has proven the
+ * last one optimal or runs out of time.
+ */
+public final class TwoPhaseSolver {
+    /** Solutions of this length are usually found within a few milliseconds. */
+    public static final int DEFAULT_MAX_LENGTH = 22;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    /** Timeout that lets a search run until it finds a solution. */
+    public static final long NO_TIMEOUT = Long.MAX_VALUE;
+
+    // Length limit for the first solution of an anytime search; loose enough that one turns up at once
+    private static final int ANYTIME_START_LENGTH = 30;
+
+    private static final int N_MOVES = MoveEngine.N_MOVES;
+    private static final int N_TWIST = 2187;
+    private static final int N_FLIP = 2048;
+    private static final int N_SLICE = 495;
+    private static final int N_PERM8 = 40320;
+    private static final int N_SLICE_PERM = 24;
+
+    // U, U2, U', R2, F2, D, D2, D', L2, B2
+    private static final int[] PHASE2_MOVES = {0, 1, 2, 4, 7, 9, 10, 11, 13, 16};
+
+    private TwoPhaseSolver() {
+    }
+
+    /**
+     * Builds the move and pruning tables now instead of on the first solve.
+     */
+    public static void init() {
+        Tables.TWIST_SLICE_PRUNE.getClass();
+    }
+
+    /**
+     * Solves a 54-character facelet state with the default limits.
+     * @return the solution in face-turn notation, or null if none was found in time
+     * @throws IllegalArgumentException if the state is not a solvable cube
+     */
+    public static String solve(String facelets) {
+        return solve(facelets, DEFAULT_MAX_LENGTH, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Solves a 54-character facelet state.
+     * @return the solution in face-turn notation, or null if none was found in time
+     * @throws IllegalArgumentException if the state is not a solvable cube
+     */
+    public static String solve(String facelets, int maxLength, long timeoutMillis) {
+        int[] moves = solve(CubieCube.fromFacelets(MoveEngine.parseState(facelets)), maxLength, timeoutMillis);
+        return moves == null ? null : MoveEngine.toNotation(moves);
+    }
+
+    /**
+     * Finds a solution of at most maxLength moves.
+     * @return move codes (see {@link MoveEngine}), or null if none was found in time
+     */
+    public static int[] solve(CubieCube cube, int maxLength, long timeoutMillis) {
+        return new Search(cube, maxLength, deadline(timeoutMillis), null, () -> false).run();
+    }
+
+    /**
+     * Runs an anytime search on the calling thread. Every solution shorter than
+     * the ones before is passed to onSolution as soon as it is found. The search
+     * ends when no shorter solution exists, when the time is up, or when the
+     * thread is interrupted.
+     *
+     * @return the shortest solution found, or null if none was found in time
+     */
+    public static int[] solveProgressively(CubieCube cube, long timeoutMillis, Consumer<int[]> onSolution) {
+        return new Search(cube, ANYTIME_START_LENGTH, deadline(timeoutMillis), onSolution, () -> false).run();
+    }
+
+    /**
+     * Returns a publisher that runs an anytime search for each subscriber and
+     * emits every improved solution in face-turn notation, then completes.
+     * Invalid states are reported through onError. Cancelling the
+     * subscription stops the search.
+     *
+     * @param executor runs the search itself; items are delivered on the common pool
+     */
+    public static Flow.Publisher<String> solveProgressively(String facelets, long timeoutMillis, Executor executor) {
+        return subscriber -> {
+            SubmissionPublisher<String> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+            executor.execute(() -> {
+                try {
+                    CubieCube cube = CubieCube.fromFacelets(MoveEngine.parseState(facelets));
+                    new Search(cube, ANYTIME_START_LENGTH, deadline(timeoutMillis),
+                            moves -> publisher.submit(MoveEngine.toNotation(moves)),
+                            () -> !publisher.hasSubscribers()).run();
+                    publisher.close();
+                } catch (RuntimeException ex) {
+                    publisher.closeExceptionally(ex);
+                }
+            });
+        };
+    }
+
+    private static long deadline(long timeoutMillis) {
+        // Capped (at about 146 years) so the deadline comparison cannot overflow
+        long nanos = timeoutMillis >= Long.MAX_VALUE / 2_000_000L ? Long.MAX_VALUE / 2 : timeoutMillis * 1_000_000L;
+        return System.nanoTime() + nanos;
+    }
+
+    private static boolean sameAxisOrder(int prev, int move) {
+        // Skip repeats of a face, and allow opposite faces only in one order
+        int pf = MoveEngine.face(prev), f = MoveEngine.face(move);
+        return pf % 3 == f % 3 && pf >= f;
+    }
+
+    private static boolean isPhase2Move(int move) {
+        return Arrays.binarySearch(PHASE2_MOVES, move) >= 0;
+    }
+
+    /**
+     * One solve in progress. Not thread-safe; each call gets its own.
+     */
+    private static final class Search {
+        private static final int CHECK_INTERVAL = 1 << 12;
+
+        private final CubieCube start;
+        private final long deadline;
+        private final Consumer<int[]> onSolution;
+        private final BooleanSupplier cancelled;
+        private final int[] moves = new int[32];
+        private int maxLength;
+        private int[] best;
+        private long nodes;
+        private boolean timedOut;
+
+        /**
+         * @param onSolution receives each improvement in anytime mode; null to stop at the first solution
+         */
+        Search(CubieCube start, int maxLength, long deadline, Consumer<int[]> onSolution, BooleanSupplier cancelled) {
+            this.start = start;
+            this.maxLength = Math.min(maxLength, moves.length - 1);
+            this.deadline = deadline;
+            this.onSolution = onSolution;
+            this.cancelled = cancelled;
+        }
+
+        int[] run() {
+            int twist = start.getTwist(), flip = start.getFlip(), slice = start.getSlice();
+            // In anytime mode maxLength shrinks with every solution, so running
+            // past it proves the best one optimal
+            for (int depth = 0; depth <= maxLength && !timedOut; depth++) {
+                if (phase1(twist, flip, slice, 0, depth)) break;
+            }
+            return best;
+        }
+
+        private boolean outOfTime() {
+            if ((++nodes & (CHECK_INTERVAL - 1)) == 0
+                    && (System.nanoTime() - deadline > 0 || cancelled.getAsBoolean()
+                        || Thread.currentThread().isInterrupted())) {
+                timedOut = true;
+            }
+            return timedOut;
+        }
+
+        private boolean phase1(int twist, int flip, int slice, int n, int togo) {
+            if (n + togo > maxLength) return false;
+            if (togo == 0) {
+                // Ending on a phase 2 move would repeat a shorter phase 1 solution
+                if (twist != 0 || flip != 0 || slice != 0) return false;
+                if (n > 0 && isPhase2Move(moves[n - 1])) return false;
+                return phase2Start(n);
+            }
+            int h = Math.max(Tables.TWIST_SLICE_PRUNE[twist * N_SLICE + slice],
+                             Tables.FLIP_SLICE_PRUNE[flip * N_SLICE + slice]);
+            if (h > togo || outOfTime()) return false;
+
+            for (int m = 0; m < N_MOVES; m++) {
+                if (n > 0 && sameAxisOrder(moves[n - 1], m)) continue;
+                moves[n] = m;
+                if (phase1(Tables.TWIST_MOVE[twist * N_MOVES + m], Tables.FLIP_MOVE[flip * N_MOVES + m],
+                           Tables.SLICE_MOVE[slice * N_MOVES + m], n + 1, togo - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Runs phase 2 from the end of the current phase 1 sequence.
+         * @return true when the whole search should stop
+         */
+        private boolean phase2Start(int n) {
+            CubieCube cube = new CubieCube(start);
+            for (int i = 0; i < n; i++)
+                cube.move(moves[i]);
+            int corners = cube.getCornerPerm(), edges = cube.getUdEdgePerm(), slice = cube.getSlicePerm();
+
+            int limit = maxLength - n;
+            for (int depth = phase2Bound(corners, edges, slice); depth <= limit; depth++) {
+                if (phase2(corners, edges, slice, n, depth)) {
+                    best = Arrays.copyOf(moves, n + depth);
+                    if (onSolution == null) return true;
+
+                    onSolution.accept(best.clone());
+                    maxLength = best.length - 1;
+                    return maxLength < 0;
+                }
+                if (timedOut) return false;
+            }
+            return false;
+        }
+
+        private static int phase2Bound(int corners, int edges, int slice) {
+            return Math.max(Tables.CORNER_SLICE_PRUNE[corners * N_SLICE_PERM + slice],
+                            Tables.EDGE_SLICE_PRUNE[edges * N_SLICE_PERM + slice]);
+        }
+
+        private boolean phase2(int corners, int edges, int slice, int n, int togo) {
+            if (togo == 0) return corners == 0 && edges == 0 && slice == 0;
+            if (phase2Bound(corners, edges, slice) > togo || outOfTime()) return false;
+
+            for (int m : PHASE2_MOVES) {
+                if (n > 0 && sameAxisOrder(moves[n - 1], m)) continue;
+                moves[n] = m;
+                if (phase2(Tables.CORNER_PERM_MOVE[corners * N_MOVES + m], Tables.UD_EDGE_MOVE[edges * N_MOVES + m],
+                           Tables.SLICE_PERM_MOVE[slice * N_MOVES + m], n + 1, togo - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Move and pruning tables, built when the class is first touched.
+     */
+    private static final class Tables {
+        static final char[] TWIST_MOVE = moveTable(N_TWIST, false, CubieCube::setTwist, CubieCube::getTwist);
+        static final char[] FLIP_MOVE = moveTable(N_FLIP, false, CubieCube::setFlip, CubieCube::getFlip);
+        static final char[] SLICE_MOVE = moveTable(N_SLICE, false, CubieCube::setSlice, CubieCube::getSlice);
+        static final char[] CORNER_PERM_MOVE = moveTable(N_PERM8, true, CubieCube::setCornerPerm, CubieCube::getCornerPerm);
+        static final char[] UD_EDGE_MOVE = moveTable(N_PERM8, true, CubieCube::setUdEdgePerm, CubieCube::getUdEdgePerm);
+        static final char[] SLICE_PERM_MOVE = moveTable(N_SLICE_PERM, true, CubieCube::setSlicePerm, CubieCube::getSlicePerm);
+
+        static final byte[] TWIST_SLICE_PRUNE = pruneTable(N_TWIST, TWIST_MOVE, N_SLICE, SLICE_MOVE, false);
+        static final byte[] FLIP_SLICE_PRUNE = pruneTable(N_FLIP, FLIP_MOVE, N_SLICE, SLICE_MOVE, false);
+        static final byte[] CORNER_SLICE_PRUNE = pruneTable(N_PERM8, CORNER_PERM_MOVE, N_SLICE_PERM, SLICE_PERM_MOVE, true);
+        static final byte[] EDGE_SLICE_PRUNE = pruneTable(N_PERM8, UD_EDGE_MOVE, N_SLICE_PERM, SLICE_PERM_MOVE, true);
+
+        /**
+         * Tabulates how each move changes a coordinate: table[c * 18 + m].
+         * Phase 2 tables only fill in the phase 2 moves.
+         */
+        private static char[] moveTable(int size, boolean phase2, ObjIntConsumer<CubieCube> set,
+                                        ToIntFunction<CubieCube> get) {
+            char[] table = new char[size * N_MOVES];
+            for (int c = 0; c < size; c++) {
+                CubieCube cube = new CubieCube();
+                set.accept(cube, c);
+                for (int face = 0; face < 6; face++) {
+                    CubieCube turned = new CubieCube(cube);
+                    for (int k = 0; k < 3; k++) {
+                        turned.move(face * 3);
+                        int m = face * 3 + k;
+                        if (!phase2 || isPhase2Move(m)) table[c * N_MOVES + m] = (char) get.applyAsInt(turned);
+                    }
+                }
+            }
+            return table;
+        }
+
+        /**
+         * Breadth-first search over the product of two coordinates, storing the
+         * distance of every pair (first * size2 + second) from solved.
+         */
+        private static byte[] pruneTable(int size1, char[] move1, int size2, char[] move2, boolean phase2) {
+            byte[] table = new byte[size1 * size2];
+            Arrays.fill(table, (byte) -1);
+            table[0] = 0;
+            int[] allowed = phase2 ? PHASE2_MOVES : new int[N_MOVES];
+            if (!phase2) Arrays.setAll(allowed, m -> m);
+
+            boolean grew = true;
+            for (byte depth = 0; grew; depth++) {
+                grew = false;
+                for (int i = 0; i < table.length; i++) {
+                    if (table[i] != depth) continue;
+                    int c1 = i / size2, c2 = i % size2;
+                    for (int m : allowed) {
+                        int j = move1[c1 * N_MOVES + m] * size2 + move2[c2 * N_MOVES + m];
+                        if (table[j] < 0) {
+                            table[j] = (byte) (depth + 1);
+                            grew = true;
+                        }
+                    }
+                }
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates thread-per-task executors backed by virtual threads when the
+ * running JVM has them (Java 21+), and by a cached platform thread pool
+ * otherwise, so the project still builds and runs on Java 17.
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns an executor that starts a new (virtual, if available) thread per task.
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Whether {@link #newPerTaskExecutor()} hands out virtual threads.
+     */
+    public static boolean isAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+}